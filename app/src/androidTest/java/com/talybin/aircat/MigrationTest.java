@@ -0,0 +1,127 @@
+package com.talybin.aircat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+// Creates database of each old version from its exported schema (see
+// app/schemas), migrates it to the latest version and validates the result
+// against the latest exported schema, then opens it with Room.
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    private static final int LATEST_VERSION = 8;
+
+    @Rule
+    public final MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(),
+            AppDatabase.class.getCanonicalName(),
+            new FrameworkSQLiteOpenHelperFactory());
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrateAllVersions() throws IOException {
+        for (int version = 1; version < LATEST_VERSION; ++version) {
+            context.deleteDatabase(TEST_DB);
+
+            SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, version);
+            insertJob(db);
+            // Run history exists since version 5
+            if (version >= 5)
+                insertRun(db);
+            db.close();
+
+            helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true,
+                    AppDatabase.MIGRATIONS).close();
+            checkMigrated(version >= 5);
+        }
+    }
+
+    private static void insertJob(SupportSQLiteDatabase db) {
+        ContentValues values = new ContentValues();
+        values.put("pmkid", "0123456789abcdef0123456789abcdef");
+        values.put("ssid", "test");
+        values.put("ap_mac", "001122334455");
+        values.put("client_mac", "66778899aabb");
+        values.put("word_list", "file:///sdcard/words.txt");
+        db.insert("job_table", SQLiteDatabase.CONFLICT_FAIL, values);
+    }
+
+    // Session of two jobs, words tried were counted per job
+    private static void insertRun(SupportSQLiteDatabase db) {
+        ContentValues values = new ContentValues();
+        values.put("word_list", "file:///sdcard/words.txt");
+        values.put("nr_jobs", 2);
+        values.put("started", 0);
+        values.put("duration_ms", 1000);
+        values.put("words_tried", 500);
+        values.put("mean_speed", 3000);
+        values.put("peak_speed", 4000);
+        values.put("outcome", RunHistory.STOPPED);
+        db.insert("run_history", SQLiteDatabase.CONFLICT_FAIL, values);
+    }
+
+    private void checkMigrated(boolean hasRun) {
+        AppDatabase db = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .build();
+        try {
+            // Opening validates the schema
+            Job job = db.jobDao().get("0123456789abcdef0123456789abcdef");
+            assertNotNull(job);
+            assertEquals("test", job.getSsid());
+            assertEquals(0, job.getResumeOffset());
+            assertNull(job.getResumeFilter());
+            assertEquals(Job.PRIORITY_NORMAL, job.getPriority());
+
+            if (hasRun) {
+                RunHistory run = db.runHistoryDao().getRecent(10).get(0);
+                assertEquals(2, run.getNrSalts());
+                assertEquals(1500, db.runHistoryDao().getLastSpeedPerSalt());
+            }
+            else
+                assertTrue(db.runHistoryDao().getRecent(10).isEmpty());
+            assertTrue(db.runHistoryDao().getEnergyPerProfile().isEmpty());
+
+            try (Cursor cursor = db.getOpenHelper().getReadableDatabase().query(
+                    "SELECT name FROM sqlite_master WHERE type = 'index' AND name = 'index_job_table_word_list'")) {
+                assertEquals(1, cursor.getCount());
+            }
+        }
+        finally {
+            db.close();
+        }
+    }
+}
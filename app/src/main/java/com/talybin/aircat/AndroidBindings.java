@@ -0,0 +1,58 @@
+package com.talybin.aircat;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.talybin.aircat.core.Settings;
+import com.talybin.aircat.core.TaskRunner;
+
+// Android implementations of core interfaces
+class AndroidBindings {
+
+    static class HandlerTaskRunner implements TaskRunner {
+        private final Handler handler;
+
+        HandlerTaskRunner(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void post(Runnable task) {
+            handler.post(task);
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            handler.postDelayed(task, delayMs);
+        }
+
+        @Override
+        public void remove(Runnable task) {
+            handler.removeCallbacks(task);
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    }
+
+    static class PreferenceSettings implements Settings {
+        private final SharedPreferences prefs;
+
+        PreferenceSettings(SharedPreferences prefs) {
+            this.prefs = prefs;
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return prefs.getString(key, defValue);
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return prefs.getBoolean(key, defValue);
+        }
+    }
+}
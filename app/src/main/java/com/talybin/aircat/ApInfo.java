@@ -4,6 +4,8 @@ import android.net.wifi.ScanResult;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 
+import com.talybin.aircat.core.Eapol;
+
 import java.util.HashSet;
 import java.util.Set;
 
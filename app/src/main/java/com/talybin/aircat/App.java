@@ -27,12 +27,34 @@ public class App extends Application {
         // reuse previously constructed threads when they are available
         poolExecutor = Executors.newCachedThreadPool();
 
+        // Write pending changes before a crash takes the process down
+        Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, err) -> {
+            try {
+                WriteBehind.getInstance().flushNow();
+            }
+            catch (Throwable ignored) {
+            }
+            if (defaultHandler != null)
+                defaultHandler.uncaughtException(thread, err);
+        });
+
         HashCat.getInstance().setErrorListener(err ->
                 Toast.makeText(this, getString(R.string.err_message, err.getMessage()), Toast.LENGTH_LONG).show());
     }
 
+    // Process in background may be killed without notice,
+    // write pending changes while it is still alive
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN)
+            WriteBehind.getInstance().flush();
+    }
+
     @Override
     public void onTerminate() {
+        WriteBehind.getInstance().flushNow();
         poolExecutor.shutdownNow();
         instance = null;
 
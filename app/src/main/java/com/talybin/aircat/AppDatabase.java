@@ -6,22 +6,29 @@ import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.talybin.aircat.core.InstrumentedExecutor;
+
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
-@Database(entities = { WordList.class, Job.class }, version = 1, exportSchema = false)
+// Schema of each version is exported to app/schemas by the build
+@Database(entities = { WordList.class, Job.class, WordListCache.class, RunHistory.class },
+        version = 8, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
 
     public abstract WordListDao wordListDao();
     public abstract JobDao jobDao();
+    public abstract WordListCacheDao wordListCacheDao();
+    public abstract RunHistoryDao runHistoryDao();
 
     private static final int NUMBER_OF_THREADS = 4;
 
     private static volatile AppDatabase instance;
+    // Records queue and write latency as db.queue_ms and db.run_ms
     static final ExecutorService databaseExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+            new InstrumentedExecutor(NUMBER_OF_THREADS, "db");
 
     private static RoomDatabase.Callback roomDatabaseCallback = new RoomDatabase.Callback() {
         @Override
@@ -36,6 +43,96 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // Version 2: word list cache
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `wordlist_cache_table` (" +
+                    "`uri` TEXT NOT NULL, " +
+                    "`source_size` INTEGER NOT NULL, " +
+                    "`source_modified` INTEGER NOT NULL, " +
+                    "`path` TEXT NOT NULL, " +
+                    "`size` INTEGER NOT NULL, " +
+                    "`nr_words` INTEGER NOT NULL, " +
+                    "`last_used` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`uri`))");
+        }
+    };
+
+    // Version 3: resumable jobs
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `job_table` ADD COLUMN `resume_offset` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `job_table` ADD COLUMN `queued` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 4: job priorities
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `job_table` ADD COLUMN `priority` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 5: indices on filtered and grouped columns, run history
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_job_table_word_list` ON `job_table` (`word_list`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_job_table_ssid` ON `job_table` (`ssid`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_job_table_queued` ON `job_table` (`queued`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `run_history` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`word_list` TEXT NOT NULL, " +
+                    "`nr_jobs` INTEGER NOT NULL, " +
+                    "`started` INTEGER NOT NULL, " +
+                    "`duration_ms` INTEGER NOT NULL, " +
+                    "`words_tried` INTEGER NOT NULL, " +
+                    "`mean_speed` INTEGER NOT NULL, " +
+                    "`peak_speed` INTEGER NOT NULL, " +
+                    "`outcome` TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_run_history_word_list` ON `run_history` (`word_list`)");
+        }
+    };
+
+    // Version 6: workload and energy of sessions
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `run_history` ADD COLUMN `profile` TEXT");
+            db.execSQL("ALTER TABLE `run_history` ADD COLUMN `energy_j` REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `run_history` ADD COLUMN `charge_mah` REAL NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Version 7: filter cached copies and resume positions were made with.
+    // Existing copies get an empty config and are made again.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `wordlist_cache_table` ADD COLUMN `filter_config` TEXT NOT NULL DEFAULT ''");
+            db.execSQL("ALTER TABLE `job_table` ADD COLUMN `resume_filter` TEXT");
+        }
+    };
+
+    // Version 8: number of salts of sessions, speed is measured per salt.
+    // Words tried were counted per job before, times the number of jobs
+    // they still give the hashes tried.
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `run_history` ADD COLUMN `nr_salts` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `run_history` SET `nr_salts` = `nr_jobs`");
+        }
+    };
+
+    static final Migration[] MIGRATIONS = {
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+            MIGRATION_6_7, MIGRATION_7_8,
+    };
+
     static AppDatabase getDatabase(final Context context) {
         if (instance == null) {
             synchronized (AppDatabase.class) {
@@ -43,6 +140,10 @@ public abstract class AppDatabase extends RoomDatabase {
                     instance = Room.databaseBuilder(context.getApplicationContext(),
                             AppDatabase.class, "aircat_database")
                             .addCallback(roomDatabaseCallback)
+                            .addMigrations(MIGRATIONS)
+                            // Job list and hashcat progress are read while
+                            // checkpoints and history are written
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
                             .build();
                 }
             }
@@ -0,0 +1,183 @@
+package com.talybin.aircat;
+
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.talybin.aircat.core.Autotuner;
+import com.talybin.aircat.core.HashcatLauncher;
+import com.talybin.aircat.core.LogRing;
+import com.talybin.aircat.core.StreamDrain;
+import com.talybin.aircat.core.ThermalController;
+import com.talybin.aircat.core.ThermalSensors;
+import com.talybin.aircat.core.TuningProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Runs the autotuner on the bundled hashcat and keeps the resulting
+// profile, which processJobs applies instead of the workload setting.
+// The profile belongs to the device it was measured on and is ignored
+// on other devices (e.g. restored from a backup).
+class Autotune {
+
+    private static Autotune instance = null;
+
+    static Autotune getInstance() {
+        if (instance == null) {
+            synchronized (Autotune.class) {
+                if (instance == null)
+                    instance = new Autotune();
+            }
+        }
+        return instance;
+    }
+
+    interface Listener {
+        void onProgress(int done, int total, TuningProfile tested);
+
+        // Profile is null if tuning failed or was cancelled
+        void onDone(@Nullable TuningProfile profile);
+    }
+
+    private static final String KEY_PROFILE = "tuning_profile";
+    private static final String KEY_DEVICE = "tuning_device";
+    private static final String KEY_USE = "use_tuning_profile";
+
+    // Pause between benchmark runs
+    private static final long COOLDOWN_MS = 5000;
+
+    private final Handler handler = new Handler();
+
+    // Used in UI thread only
+    private Future<?> task = null;
+    private Listener listener = null;
+
+    private Autotune() {
+    }
+
+    boolean isRunning() {
+        return task != null;
+    }
+
+    // Listener is called on UI thread, replaces the previous one
+    void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    // Return false if hashcat is busy
+    boolean start() {
+        if (task != null)
+            return true;
+        if (!HashCat.getInstance().isIdle())
+            return false;
+
+        HashCatService.start();
+        task = App.getThreadPool().submit(() -> {
+            TuningProfile profile = null;
+            try {
+                profile = new Autotuner(this::benchmark, Autotuner.DEFAULT_MAX_RUN_MS, COOLDOWN_MS)
+                        .setThermal(new ThermalSensors(new File("/")),
+                                ThermalController.Config.forTarget(ThermalGovernor.getTarget()).high)
+                        .setListener((done, total, tested) -> handler.post(() -> {
+                            if (listener != null)
+                                listener.onProgress(done, total, tested);
+                        }))
+                        .tune();
+            }
+            catch (InterruptedException e) {
+                Log.d("Autotune", "cancelled");
+            }
+            catch (RuntimeException e) {
+                Log.e("Autotune", "failed", e);
+            }
+            finally {
+                // Also on failure, waiting jobs would never resume
+                TuningProfile result = profile;
+                handler.post(() -> finished(result));
+            }
+        });
+        return true;
+    }
+
+    void cancel() {
+        if (task != null)
+            task.cancel(true);
+    }
+
+    // Profile measured on this device, null if none or disabled
+    @Nullable
+    static TuningProfile getProfile() {
+        SharedPreferences prefs = App.settings();
+        if (!prefs.getBoolean(KEY_USE, true) || !deviceId().equals(prefs.getString(KEY_DEVICE, null)))
+            return null;
+        return TuningProfile.decode(prefs.getString(KEY_PROFILE, null));
+    }
+
+    // Profile stored for this device, regardless of whether it is used
+    @Nullable
+    static TuningProfile getStoredProfile() {
+        SharedPreferences prefs = App.settings();
+        if (!deviceId().equals(prefs.getString(KEY_DEVICE, null)))
+            return null;
+        return TuningProfile.decode(prefs.getString(KEY_PROFILE, null));
+    }
+
+    private void finished(@Nullable TuningProfile profile) {
+        task = null;
+        HashCatService.stop();
+
+        if (profile != null) {
+            Log.i("Autotune", "profile: " + profile);
+            App.settings().edit()
+                    .putString(KEY_PROFILE, profile.encode())
+                    .putString(KEY_DEVICE, deviceId())
+                    .apply();
+        }
+        if (listener != null)
+            listener.onDone(profile);
+
+        // Jobs started meanwhile have been waiting
+        HashCat.getInstance().resume();
+    }
+
+    // One benchmark run, 0 if it failed or took too long
+    private long benchmark(TuningProfile candidate, long maxRunMs) throws IOException, InterruptedException {
+        HashcatLauncher launcher = new HashcatLauncher(HashCat.getInstance().getWorkingDir(),
+                new AndroidBindings.PreferenceSettings(App.settings()));
+        Process process = launcher.startBenchmark(candidate);
+        try {
+            process.getOutputStream().close();
+
+            // Unsupported kernel parameters are reported on stderr
+            LogRing log = HashCat.getInstance().getLog();
+            App.getThreadPool().execute(
+                    new StreamDrain(process.getErrorStream(), log, LogRing.Source.STDERR, null));
+
+            Future<Long> speed = App.getThreadPool().submit(
+                    () -> Autotuner.parseBenchmark(process.getInputStream()));
+            if (!process.waitFor(maxRunMs, TimeUnit.MILLISECONDS)) {
+                Log.w("Autotune", candidate + ": too long");
+                return 0;
+            }
+            return process.exitValue() == 0 ? speed.get() : 0;
+        }
+        catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        finally {
+            process.destroy();
+        }
+    }
+
+    // Changes on system update, so a new driver gets a new profile
+    private static String deviceId() {
+        return Build.FINGERPRINT;
+    }
+}
@@ -0,0 +1,162 @@
+package com.talybin.aircat;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.ActionBar;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.talybin.aircat.core.Metrics;
+import com.talybin.aircat.core.MetricsServer;
+
+import java.io.IOException;
+
+// Shows pipeline metrics and recent hashcat log. Metrics are exported as
+// JSON, either by sharing or on a loopback endpoint for adb forward.
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    // Kept while the app runs so metrics can be polled with other screens open
+    private static MetricsServer server = null;
+
+    private final Handler handler = new Handler();
+    private final Runnable refreshTask = this::refresh;
+
+    private TextView metricsText;
+
+    // Read from run history on resume, used in UI thread only
+    private String energyText = "";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.diagnostics_activity);
+        metricsText = findViewById(R.id.metrics_text);
+
+        ActionBar actionBar = getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setDisplayHomeAsUpEnabled(true);
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+        loadEnergy();
+    }
+
+    @Override
+    protected void onPause() {
+        handler.removeCallbacks(refreshTask);
+        super.onPause();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.diagnostics_menu, menu);
+
+        MenuItem endpoint = menu.findItem(R.id.action_endpoint);
+        endpoint.setTitle(getString(R.string.metrics_endpoint, MetricsServer.DEFAULT_PORT));
+        endpoint.setChecked(server != null);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+
+        if (id == android.R.id.home) {
+            finish();
+            return true;
+        }
+        if (id == R.id.action_refresh) {
+            refresh();
+            return true;
+        }
+        if (id == R.id.action_share) {
+            Intent intent = new Intent(Intent.ACTION_SEND);
+            intent.setType("application/json");
+            intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.title_activity_diagnostics));
+            intent.putExtra(Intent.EXTRA_TEXT, Metrics.get().toJson());
+            startActivity(Intent.createChooser(intent, getString(R.string.share)));
+            return true;
+        }
+        if (id == R.id.action_reset) {
+            Metrics.get().reset();
+            refresh();
+            return true;
+        }
+        if (id == R.id.action_endpoint) {
+            item.setChecked(toggleServer());
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    // Return true if server is running after the call
+    private boolean toggleServer() {
+        if (server != null) {
+            server.close();
+            server = null;
+            return false;
+        }
+        try {
+            server = new MetricsServer(Metrics.get(), MetricsServer.DEFAULT_PORT);
+            return true;
+        }
+        catch (IOException e) {
+            Toast.makeText(this, getString(R.string.metrics_endpoint_failed, e.getMessage()),
+                    Toast.LENGTH_LONG).show();
+            return false;
+        }
+    }
+
+    private void refresh() {
+        handler.removeCallbacks(refreshTask);
+
+        String text = Metrics.get().toText();
+        if (text.isEmpty())
+            text = getString(R.string.no_metrics);
+
+        // Speed, utilization and temperature over the session
+        String history = HashCat.getInstance().getHistory().toText();
+        if (!history.isEmpty())
+            text += "\n" + getString(R.string.hashcat_telemetry) + "\n" + history;
+
+        // Time and speed per thermal level
+        String thermal = HashCat.getInstance().getThermal().toText();
+        if (!thermal.isEmpty())
+            text += "\n" + getString(R.string.thermal_levels) + "\n" + thermal;
+
+        // Which workload gives most hashes for the battery
+        if (!energyText.isEmpty())
+            text += "\n" + getString(R.string.energy_per_profile) + "\n" + energyText;
+
+        // Recent hashcat messages for post-mortems
+        String log = HashCat.getInstance().getLog().toText();
+        if (!log.isEmpty())
+            text += "\n" + getString(R.string.hashcat_log) + "\n" + log;
+
+        metricsText.setText(text);
+
+        handler.postDelayed(refreshTask, REFRESH_INTERVAL_MS);
+    }
+
+    private void loadEnergy() {
+        AppDatabase.databaseExecutor.execute(() -> {
+            StringBuilder sb = new StringBuilder();
+            for (RunHistory.ProfileEnergy energy :
+                    AppDatabase.getDatabase(App.getContext()).runHistoryDao().getEnergyPerProfile())
+                sb.append(energy).append('\n');
+            handler.post(() -> energyText = sb.toString());
+        });
+    }
+}
@@ -1,26 +1,50 @@
 package com.talybin.aircat;
 
-import android.annotation.SuppressLint;
 import android.net.Uri;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.talybin.aircat.core.CandidateFilter;
+import com.talybin.aircat.core.Compression;
+import com.talybin.aircat.core.CpuTopology;
+import com.talybin.aircat.core.EnergyMeter;
+import com.talybin.aircat.core.FeedPipeline;
+import com.talybin.aircat.core.HashFormat;
+import com.talybin.aircat.core.HashcatLauncher;
+import com.talybin.aircat.core.LogRing;
+import com.talybin.aircat.core.Metrics;
+import com.talybin.aircat.core.OutputParser;
+import com.talybin.aircat.core.Progress;
+import com.talybin.aircat.core.ProgressDispatcher;
+import com.talybin.aircat.core.Salts;
+import com.talybin.aircat.core.ShardPlanner;
+import com.talybin.aircat.core.StreamDrain;
+import com.talybin.aircat.core.Telemetry;
+import com.talybin.aircat.core.TelemetryHistory;
+import com.talybin.aircat.core.TuningProfile;
+import com.talybin.aircat.core.WordCounter;
+import com.talybin.aircat.core.WordLimiter;
+import com.talybin.aircat.core.WordSkipper;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.stream.Collectors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class HashCat {
 
@@ -37,30 +61,110 @@ public class HashCat {
         return instance;
     }
 
-    static class Progress {
-        // State of the job:
-        //  3 (running)
-        //  5 (exhausted)
-        //  6 (cracked)
-        //  7 (aborted)
-        //  8 (quit)
-        int state = 0;
+    // Word list as seen by hashcat
+    private static class Feed {
+
+        final WordList wordList;
+
+        // Filter on the way to hashcat, null if feeding as is
+        CandidateFilter filter = null;
+
+        // Filtered copy read by hashcat instead of the source, if any
+        WordListCache cached = null;
+
+        // Path of plain file hashcat reads by itself, null if words
+        // are fed thru stdin
+        String directPath = null;
+
+        // Number of words to skip when resuming. Counted in words of
+        // filtered list (if filtering is enabled).
+        final long skip;
+
+        final boolean filtering;
+
+        // Kept with checkpoints, see getFeedKey()
+        final String key;
 
-        // Speed in hashes per second
-        int speed = 0;
+        Feed(WordList wordList, long skip) {
+            this.wordList = wordList;
+            this.skip = skip;
+            this.key = getFeedKey();
+            this.filtering = !key.isEmpty();
+        }
+
+        // Let hashcat read the file directly, if possible. This way hashcat
+        // knows the exact number of words and skips words by itself.
+        // Should be called before starting hashcat.
+        void findDirectPath() {
+            if (filtering) {
+                // Only filtered copy has words that passed the filter
+                WordListCacheManager cache = WordListCacheManager.getInstance();
+                if (cache.isEnabled()) {
+                    cached = cache.get(wordList.getUri());
+                    if (cached != null)
+                        directPath = cached.getPath();
+                }
+            }
+            else {
+                Uri uri = wordList.getUri();
+                if ("file".equals(uri.getScheme()) && Compression.isPlainFile(new File(uri.getPath())))
+                    directPath = uri.getPath();
+            }
+        }
 
-        // Number bytes processed so far
-        long nr_complete = 0;
+        // Open range of words to be fed thru stdin, count 0 for the rest
+        // of the list. Only the worker reading to the end counts words
+        // and filters, ranges are used without filtering only.
+        ReadableByteChannel open(long start, long count) throws IOException {
+            ReadableByteChannel src = count > 0 ? Streams.openChannel(wordList.getUri()) : openSource();
+            if (skip + start > 0)
+                src = new WordSkipper(src, skip + start);
+            return count > 0 ? new WordLimiter(src, count) : src;
+        }
 
-        // Total number of bytes in initial input stream
-        long total = 0;
+        private ReadableByteChannel openSource() throws IOException {
+            if (!filtering)
+                return openCounted();
 
-        // For debug purpose
-        @NonNull
-        @SuppressLint("DefaultLocale")
-        public String toString() {
-            return String.format("state: %d, speed: %d H/s, complete: %d/%d",
-                    state, speed, nr_complete, total);
+            // Drop words hashcat would reject anyway, keep the result
+            // for next time
+            filter = new CandidateFilter(openCounted());
+            return WordListCacheManager.getInstance().cacheWhileReading(wordList, filter);
+        }
+
+        // Open the source counting words on the way
+        private ReadableByteChannel openCounted() throws IOException {
+            return new WordCounter(Streams.openChannel(wordList.getUri()), nrWords -> {
+                if (!Long.valueOf(nrWords).equals(wordList.getNrWords()))
+                    HashCat.getInstance().post(() -> wordList.setNrWords(nrWords));
+            });
+        }
+
+        // Number of words hashcat is expected to get, null if unknown
+        @Nullable
+        Long getNrWords() {
+            if (cached != null)
+                return cached.getNrWords();
+
+            Long words = wordList.getNrWords();
+            if (words == null)
+                words = wordList.getEstimatedWords();
+            if (words != null && filter != null)
+                words = filter.estimateAccepted(words);
+            return words;
+        }
+
+        // Hashcat went thru all words of the source. Update number of words
+        // in word list, it will be used next time for better precision.
+        void setExhausted(long nrWords) {
+            // Number of words in cached copy is exact
+            if (cached != null)
+                return;
+
+            if (filter != null)
+                nrWords += filter.getRejected();
+            if (!Long.valueOf(nrWords).equals(wordList.getNrWords()))
+                wordList.setNrWords(nrWords);
         }
     }
 
@@ -79,24 +183,125 @@ public class HashCat {
     // Queued jobs
     private List<Job> jobQueue = new ArrayList<>();
 
-    // Process is not null if currently running
-    private Process hashCatProcess = null;
+    // Chooses the next group of jobs to run
+    private final Scheduler scheduler;
+
+    // Stops running group when its time budget is used and other
+    // groups are waiting, null if no budget
+    private Runnable budgetTask = null;
+
+    // Set on hashcat stopped by budget task
+    private volatile boolean budgetExpired = false;
+
+    // Set on hashcat stopped to run later, at another thermal level
+    // or in the next run window
+    private volatile boolean yieldRequested = false;
+
+    // Hashcat processes of running group, one per worker.
+    // Guarded by HashCat.class.
+    private final List<Process> processes = new ArrayList<>();
+
+    // Word list feed of current (first) worker
+    private volatile FeedPipeline feedPipeline = null;
+
+    // Cores to split sharded groups among
+    private final CpuTopology cpuTopology = CpuTopology.read(new File("/"));
+
+    // Cores and scheduling class of workers
+    private final WorkerPriority priority;
+
+    // Workload level and pauses by temperature and battery
+    private final ThermalGovernor thermal;
 
     // Used in UI thread only
     private boolean isRunning = false;
 
+    // Minimum interval between saving job positions to database
+    private static final long CHECKPOINT_INTERVAL_MS = 30_000;
+
+    // Minimum intervals between progress updates of job views and
+    // notification. Hashcat may report faster.
+    private static final long UI_PROGRESS_INTERVAL_MS = 500;
+    private static final long NOTIFICATION_PROGRESS_INTERVAL_MS = 2000;
+
+    private final ProgressDispatcher<Job> progressDispatcher;
+
+    private final Metrics metrics = Metrics.get();
+
+    // Recent hashcat messages and warnings, kept across sessions
+    private final LogRing log = new LogRing(LogRing.DEFAULT_CAPACITY);
+
+    // Status samples of running (or last) session
+    private final TelemetryHistory history = new TelemetryHistory(TelemetryHistory.DEFAULT_CAPACITY);
+
+    // Longest wait for stderr to close after stdout
+    private static final long STDERR_WAIT_MS = 1000;
+
     // Listeners
     private ErrorListener errorListener = null;
 
     private HashCat() {
         poolExecutor = App.getThreadPool();
         workingDir = Paths.get(App.getContext().getFilesDir().toString(), "hashcat").toFile();
+        scheduler = new Scheduler();
+        priority = new WorkerPriority(poolExecutor, cpuTopology);
+        thermal = new ThermalGovernor(handler, poolExecutor, this::yieldGroup);
+
+        progressDispatcher = new ProgressDispatcher<Job>(new AndroidBindings.HandlerTaskRunner(handler))
+                .addConsumer((jobs, progress) -> jobs.forEach(job -> job.setProgress(progress)),
+                        UI_PROGRESS_INTERVAL_MS)
+                .addConsumer(HashCatService::showProgress,
+                        NOTIFICATION_PROGRESS_INTERVAL_MS);
     }
 
     void setErrorListener(ErrorListener listener) {
         errorListener = listener;
     }
 
+    LogRing getLog() {
+        return log;
+    }
+
+    TelemetryHistory getHistory() {
+        return history;
+    }
+
+    ThermalGovernor getThermal() {
+        return thermal;
+    }
+
+    // Workers yield to the UI while the app is visible
+    void setForeground(boolean foreground) {
+        priority.setForeground(foreground);
+    }
+
+    File getWorkingDir() {
+        return workingDir;
+    }
+
+    // Nothing running or queued, call from UI thread
+    boolean isIdle() {
+        return !isRunning && jobQueue.isEmpty();
+    }
+
+    // A group is being processed
+    boolean isGroupRunning() {
+        return isRunning;
+    }
+
+    // Run queued jobs held back by autotune
+    void resume() {
+        runNext();
+    }
+
+    // Feed statistics of running (or last) process, null if never started.
+    // Stall counters tell whether word list reading or hashcat is the bottleneck.
+    @Nullable
+    FeedPipeline.Stats getFeedStats() {
+        FeedPipeline pipeline = feedPipeline;
+        return pipeline != null ? pipeline.getStats() : null;
+    }
+
     // Run on hashcat handler to avoid concurrent modification.
     // Calls from UI do not have to use this since handler created
     // from App context.
@@ -114,6 +319,8 @@ public class HashCat {
             jobQueue.add(job);
             // Update the job state
             job.setState(Job.State.QUEUED);
+            // Size of word list is needed for scheduling
+            getWordList(job.getUri());
         }
         runNext();
     }
@@ -130,6 +337,11 @@ public class HashCat {
             jobQueue.remove(job);
         }
 
+        // Forget time spent by groups removed from the queue
+        jobs.stream().map(Job::getUri).distinct()
+                .filter(uri -> jobQueue.stream().noneMatch(job -> job.getUri().equals(uri)))
+                .forEach(scheduler::finished);
+
         // If no running jobs left, stop hashcat too
         if (jobQueue.stream().noneMatch(Job::isRunning))
             stopProcess();
@@ -140,35 +352,101 @@ public class HashCat {
     }
 
     private void runNext() {
-        if (isRunning)
+        // Benchmark runs would skew each other
+        if (isRunning || Autotune.getInstance().isRunning())
             return;
 
+        // Deferred jobs wait for charging and idle device
+        RunWindow window = RunWindow.getInstance();
+        if (window.isHeld()) {
+            if (!jobQueue.isEmpty())
+                window.request();
+            return;
+        }
+
         // Is there any job?
-        if (!jobQueue.isEmpty()) {
+        Scheduler.Group group = scheduler.next(jobQueue, WordListManager.getInstance()::getOrCreate);
+        if (group != null) {
             HashCatService.start();
 
-            Uri uri = jobQueue.get(0).getUri();
+            Uri uri = group.uri;
             // Getting word list should be on UI thread
             WordList wordList = getWordList(uri);
 
-            // Get all jobs with same uri
-            List<Job> sameUriList = jobQueue.stream()
-                    .filter(job -> job.getUri().equals(uri))
-                    .collect(Collectors.toList());
+            // All jobs with same uri
+            List<Job> sameUriList = group.jobs;
+            int nrSalts = group.getNrSalts();
 
             sameUriList.forEach(job -> job.setState(Job.State.STARTING));
 
             if (App.settings().getBoolean("clear_password", false))
                 sameUriList.forEach(job -> job.setPassword(null));
 
+            // Resume from position all jobs have reached
+            long skip = group.skip;
+
+            // Autotuned workload of this device, otherwise from settings
+            TuningProfile profile = Autotune.getProfile();
+            if (profile == null) {
+                int workload;
+                try {
+                    workload = Integer.parseInt(App.settings().getString("hashcat_power_usage", "2"));
+                }
+                catch (NumberFormatException e) {
+                    workload = 2;
+                }
+                profile = TuningProfile.DEFAULT.withWorkload(workload);
+            }
+
+            // Workload held down by thermal control
+            int level = thermal.start(profile.workload);
+            if (level < profile.workload)
+                profile = profile.withWorkload(level);
+            TuningProfile runProfile = profile;
+
+            long startTime = SystemClock.elapsedRealtime();
+            startBudget(new ArrayList<>(sameUriList));
+
             isRunning = true;
             poolExecutor.execute(() -> {
-                processJobs(wordList, sameUriList);
+                // Workers read their own copy, the list is read here on UI thread
+                Progress progress = processJobs(wordList,
+                        Collections.unmodifiableList(new ArrayList<>(sameUriList)), skip, runProfile);
 
                 post(() -> {
-                    // Remove finished jobs
-                    jobQueue.removeAll(sameUriList);
-                    sameUriList.forEach(job -> job.setState(Job.State.NOT_RUNNING));
+                    // Late progress should not be shown on stopped jobs
+                    progressDispatcher.cancel();
+                    metrics.gauge("ui.progress_published").set(progressDispatcher.getNrPublished());
+                    metrics.gauge("ui.progress_delivered").set(progressDispatcher.getNrDelivered());
+                    cancelBudget();
+                    thermal.stop();
+
+                    if (progress != null)
+                        scheduler.setSpeed(progress.speed, nrSalts);
+
+                    // Group stopped by its budget, for a thermal level or at
+                    // end of run window goes back to queue unless it has been
+                    // finished meanwhile
+                    boolean yielded = (budgetExpired || yieldRequested) && progress != null &&
+                            progress.state != 5 && progress.state != 6;
+                    budgetExpired = false;
+                    yieldRequested = false;
+
+                    if (yielded) {
+                        scheduler.yielded(uri, SystemClock.elapsedRealtime() - startTime);
+                        sameUriList.forEach(job -> {
+                            if (jobQueue.contains(job))
+                                job.setState(Job.State.QUEUED);
+                            else
+                                job.setState(Job.State.NOT_RUNNING);
+                        });
+                    }
+                    else {
+                        // Remove finished jobs
+                        scheduler.finished(uri);
+                        jobQueue.removeAll(sameUriList);
+                        sameUriList.forEach(job -> job.setState(Job.State.NOT_RUNNING));
+                    }
 
                     HashCatService.stop();
 
@@ -178,266 +456,583 @@ public class HashCat {
                 });
             });
         }
+        else
+            window.close(false);
     }
 
-    private void stopProcess() {
-        synchronized (HashCat.class) {
-            if (hashCatProcess != null) {
-                hashCatProcess.destroy();
-                hashCatProcess = null;
+    // Stop running group after its time budget if other groups are waiting
+    private void startBudget(List<Job> running) {
+        long budget = scheduler.getTimeBudgetMs();
+        if (budget <= 0)
+            return;
+
+        budgetTask = () -> {
+            if (jobQueue.stream().allMatch(running::contains)) {
+                // Nothing else to run, give it another period
+                handler.postDelayed(budgetTask, budget);
+                return;
             }
-        }
+            Log.d("HashCat", "time budget used");
+            budgetExpired = true;
+            stopProcess();
+        };
+        handler.postDelayed(budgetTask, budget);
     }
 
-    // Process a job group
-    private void processJobs(WordList wordList, List<Job> jobs) {
-        File hashFile = null;
-        try {
-            hashFile = createHashFile(jobs);
-            hashCatProcess = Runtime.getRuntime().exec(
-                    new String[] {
-                            "./hashcat",
-
-                            // Hash-type: WPA-PMKID-PBKDF2
-                            "-m", "16800",
-
-                            // Attack Mode: Straight
-                            "-a", "0",
-
-                            // Suppress output
-                            "--quiet",
-
-                            // Enable a specific workload profile from settings.
-                            // Default is 2 (Economic).
-                            "-w", App.settings().getString("hashcat_power_usage", "2"),
-
-                            // Enable automatic update of the status screen.
-                            // Sets seconds between status screen updates to X.
-                            "--status", "--status-timer=" +
-                            App.settings().getString("hashcat_refresh_interval", "3"),
-
-                            // Display the status view in a machine-readable format
-                            "--machine-readable",
+    private void cancelBudget() {
+        if (budgetTask != null) {
+            handler.removeCallbacks(budgetTask);
+            budgetTask = null;
+        }
+    }
 
-                            // Enable removal of hashes once they are cracked.
-                            // Remained jobs will run faster.
-                            "--remove",
+    // Stop running group at its position and queue it again, call
+    // from UI thread
+    void yieldGroup() {
+        if (isRunning) {
+            Log.d("HashCat", "yield");
+            yieldRequested = true;
+            stopProcess();
+        }
+    }
 
-                            // Disable the logfile. Not reading it here.
-                            "--logfile-disable",
+    private void stopProcess() {
+        thermal.release();
+        synchronized (HashCat.class) {
+            processes.forEach(Process::destroy);
+            processes.clear();
+        }
+    }
 
-                            // Do not write potfile. Using app database instead.
-                            "--potfile-disable",
+    // Process a job group skipping specified number of words, with given
+    // workload profile. The group may be split among several hashcat
+    // workers, see planShards(). Return last progress, null on error.
+    @Nullable
+    private Progress processJobs(WordList wordList, List<Job> jobs, long skip,
+                                 TuningProfile profile)
+    {
+        RunStats stats = new RunStats(profile);
+        List<Worker> workers = new ArrayList<>();
+        Progress progress = null;
+        try {
+            history.start();
+
+            Feed feed = new Feed(wordList, skip);
+            feed.findDirectPath();
+
+            for (ShardPlanner.Shard shard : planShards(feed))
+                workers.add(new Worker(shard));
+            GroupProgress group = new GroupProgress(feed, jobs, workers, stats);
+
+            for (Worker worker : workers)
+                worker.start(feed, jobs, profile);
+            feedPipeline = workers.get(0).pipeline;
+
+            // Output of first worker is parsed on this thread
+            List<Future<?>> parsing = new ArrayList<>();
+            for (Worker worker : workers.subList(1, workers.size()))
+                parsing.add(poolExecutor.submit(() -> {
+                    worker.parse(group);
+                    return null;
+                }));
+            workers.get(0).parse(group);
+            for (Future<?> future : parsing) {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+                }
+            }
 
-                            hashFile.getPath()
-                    },
-                    // No environment variables
-                    null,
-                    // Working directory
-                    workingDir
-            );
+            progress = group.getLast();
+            for (Worker worker : workers) {
+                if (worker.pipeline != null)
+                    recordFeed(worker.pipeline.getStats());
+            }
 
-            InputStream src = Streams.openInputStream(wordList.getUri());
-            OutputStream sink = hashCatProcess.getOutputStream();
+            // Start over next time if whole word list has been tried or all
+            // passwords found, otherwise continue where stopped
+            if (progress.state == 5 || progress.state == 6)
+                checkpoint(jobs, 0, feed);
+            else {
+                long offset = group.getResumeOffset();
+                if (offset > 0)
+                    checkpoint(jobs, offset, feed);
+            }
 
-            pipeStream(src, sink);
-            parseOutput(hashCatProcess, wordList, jobs);
+            for (Worker worker : workers) {
+                // Stdout is closed, the rest of stderr follows shortly
+                try {
+                    worker.stderrDone.get(STDERR_WAIT_MS, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException e) {
+                    Log.w("HashCat", "stderr still open");
+                }
+                metrics.counter("hashcat.stderr_lines").add(worker.stderr.getNrLines());
+            }
 
-            InputStream errStream = hashCatProcess.getErrorStream();
-            if (errStream.available() > 0)
-                throw new Exception(Utils.toString(errStream));
+            for (Worker worker : workers) {
+                // Fatal error has been reported already
+                if (worker.stderr.getNrFatal() > 0) {
+                    progress = null;
+                    return null;
+                }
+                // Warnings do not fail the session
+                if (worker.stderr.getNrErrors() > 0)
+                    throw new Exception(worker.stderr.getLastError());
+            }
 
             // Update on success only
             wordList.setLastUsed();
+            return progress;
         }
         catch (Exception e) {
             setError(e);
+            progress = null;
+            return null;
         }
         finally {
             stopProcess();
-            if (hashFile != null)
-                hashFile.delete();
+            workers.forEach(Worker::close);
+            recordRun(wordList, jobs, skip, stats, progress);
         }
     }
 
-    private void setState(List<Job> jobs, Job.State state) {
-        post(() -> jobs.forEach(job -> job.setState(state)));
-    }
+    // Split the group among hashcat workers if enabled in settings.
+    // Ranges need exact number of words hashcat gets, otherwise (e.g.
+    // filtering without a cached copy yet) one worker runs the group.
+    private List<ShardPlanner.Shard> planShards(Feed feed) {
+        int nrWorkers;
+        try {
+            nrWorkers = Integer.parseInt(App.settings().getString("shard_workers", "1"));
+        }
+        catch (NumberFormatException e) {
+            nrWorkers = 1;
+        }
 
-    private void setProgress(List<Job> jobs, Progress progress) {
-        post(() -> {
-            jobs.forEach(job -> job.setProgress(progress));
-            HashCatService.showProgress(jobs, progress);
-        });
-    }
+        Long words = null;
+        if (feed.cached != null)
+            words = feed.cached.getNrWords();
+        else if (!feed.filtering)
+            words = feed.wordList.getNrWords();
 
-    private void setPassword(Job job, String password) {
-        post(() -> {
-            job.setPassword(password);
-            HashCatService.showPassword(job, password);
-        });
-    }
+        if (nrWorkers == 1 || words == null)
+            return ShardPlanner.plan(0, cpuTopology, 1);
 
-    private void setError(Exception err) {
-        if (errorListener != null)
-            post(() -> errorListener.onError(err));
-        else
-            err.printStackTrace();
+        List<ShardPlanner.Shard> shards = ShardPlanner.plan(words - feed.skip, cpuTopology, nrWorkers);
+        Log.d("HashCat", "shards: " + shards);
+        return shards;
     }
 
-    // Generate job hashes to be read by hashcat process
-    private static File createHashFile(List<Job> jobs) throws IOException {
-        File hashFile = File.createTempFile("hashcat-", ".16800");
+    // Hashcat process trying one range of words of a group
+    private class Worker {
+        final ShardPlanner.Shard shard;
 
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(hashFile))) {
-            for (Job job : jobs) {
-                bufferedWriter.write(job.getHash());
-                bufferedWriter.newLine();
-            }
+        // Own copy, hashcat removes cracked hashes from it
+        File hashFile = null;
+
+        Process process = null;
+        FeedPipeline pipeline = null;
+        StreamDrain stderr = null;
+        Future<?> stderrDone = null;
+
+        // Latest status, guarded by GroupProgress
+        boolean reported = false;
+        int state = 0;
+        long speed = 0;
+        long progress = 0;
+        long progressTotal = 0;
+        Telemetry telemetry = null;
+
+        Worker(ShardPlanner.Shard shard) {
+            this.shard = shard;
         }
-        return hashFile;
-    }
 
-    private WordList getWordList(Uri uri) {
-        WordList wordList = WordListManager.getInstance().getOrCreate(uri);
-        // Count words if not done already
-        if (wordList.getNrWords() == null) {
-            poolExecutor.execute(() -> {
-                try (InputStream is = Streams.openInputStream(wordList.getUri())) {
-                    byte[] buffer = new byte[4096];
-                    long rows = 0;
+        void start(Feed feed, List<Job> jobs, @Nullable TuningProfile profile) throws IOException {
+            hashFile = HashFormat.createHashFile(jobs);
 
-                    for (int cnt; (cnt = is.read(buffer)) > 0; ) {
-                        for (int i = 0; i < cnt; ++i)
-                            if (buffer[i] == '\n') ++rows;
-                    }
+            HashcatLauncher launcher = new HashcatLauncher(workingDir,
+                    new AndroidBindings.PreferenceSettings(App.settings()))
+                    .setProfile(profile)
+                    .setCpus(shard.cpus.isEmpty() ? priority.getCpus() : shard.cpus);
+            if (feed.directPath != null)
+                launcher.setDictionary(feed.directPath, feed.skip + shard.start).setLimit(shard.count);
 
-                    // Update word list
-                    wordList.setNrWords(rows);
-                }
-                catch (Exception e) {
-                    setError(e);
-                }
+            long spawnStart = SystemClock.elapsedRealtime();
+            process = launcher.start(hashFile);
+            synchronized (HashCat.class) {
+                processes.add(process);
+            }
+            metrics.histogram("hashcat.spawn_ms").record(SystemClock.elapsedRealtime() - spawnStart);
+
+            // Hashcat blocks if nobody reads its stderr. Other workers
+            // are stopped on fatal error too.
+            stderr = new StreamDrain(process.getErrorStream(), log, LogRing.Source.STDERR, line -> {
+                setError(new Exception(line));
+                stopProcess();
             });
+            stderrDone = poolExecutor.submit(stderr);
+
+            if (feed.directPath == null) {
+                pipeline = new FeedPipeline(poolExecutor, HashCat.this::setError);
+                pipeline.start(feed.open(shard.start, shard.count),
+                        Channels.newChannel(process.getOutputStream()));
+            }
+            else
+                process.getOutputStream().close();
         }
-        return wordList;
-    }
 
-    // Async copy content of one stream to another.
-    // Closing streams on complete.
-    private void pipeStream(InputStream src, OutputStream sink) {
-        poolExecutor.execute(() -> {
-            byte[] buffer = new byte[4096];
+        // Until end of output
+        void parse(GroupProgress group) throws IOException {
+            OutputParser<Job> parser = new OutputParser<>(process.getInputStream(), group.allJobs,
+                    new OutputParser.Listener<Job>() {
+                        @Override
+                        public void onStatus(OutputParser.Status status) {
+                            group.onStatus(Worker.this, status);
+                        }
+
+                        @Override
+                        public void onPassword(Job job, String password) {
+                            group.onPassword(job, password);
+                        }
+                    });
+
+            parser.setLog(log);
+
+            long parseStart = SystemClock.elapsedRealtime();
             try {
-                for (int cnt; (cnt = src.read(buffer)) > 0;)
-                    sink.write(buffer, 0, cnt);
-            }
-            catch (IOException e) {
-                // Broken pipe is ok, just means that hashcat has ended (probably
-                // found passwords for all jobs) and sink has closed while writing.
-                // All other errors should be reported.
-                String err = e.getMessage();
-                if (err == null || !err.contains("EPIPE"))
-                    setError(e);
+                parser.run();
             }
             finally {
-                Utils.silentClose(sink, src);
+                long elapsed = SystemClock.elapsedRealtime() - parseStart;
+                metrics.counter("parser.lines").add(parser.getNrLines());
+                if (elapsed > 0)
+                    metrics.gauge("parser.lines_per_sec").set(parser.getNrLines() * 1000.0 / elapsed);
             }
-        });
+        }
+
+        void close() {
+            if (pipeline != null)
+                pipeline.close();
+            if (hashFile != null)
+                hashFile.delete();
+        }
     }
 
-    private void parseOutput(Process process, WordList wordList, List<Job> jobs) {
+    // Status of all workers of a group combined into one progress.
+    // Workers report from their own threads.
+    private class GroupProgress {
+        final Feed feed;
+
+        // All jobs of the group, immutable
+        final List<Job> allJobs;
 
-        Progress progress = new Progress();
-        InputStreamReader outStream = new InputStreamReader(process.getInputStream());
-        Scanner scanner = new Scanner(outStream);
+        // Jobs not cracked yet. Cracked ones are removed by parser threads
+        // while the UI iterates it.
+        final List<Job> jobs;
+        final List<Worker> workers;
+        final RunStats stats;
+
+        // Hashcat progress counts every word once per salt
+        final Salts salts;
 
         // Update status on first progress
         boolean firstProgress = true;
 
-        // Number of jobs holds synchronization to hashcat output
-        int nrJobs = jobs.size();
-
-        while (scanner.hasNext()) {
-            //String line = scanner.nextLine();
-            //Log.d("HashCat", "---> line [" + line + "]");
-
-            String token = scanner.next();
-
-            // Check for password line as "<ap mac>:<client mac>:<ssid>:<password>"
-            // Mac addresses encoded without colons
-            int pos = token.indexOf(':');
-            if (pos > 0) {
-                Log.d("HashCat", token);
-
-                for (Job job : jobs) {
-                    // Encode job to output format
-                    String encJob = String.format("%s:%s:%s:",
-                            job.getApMac().replace(":", ""),
-                            job.getClientMac().replace(":", ""),
-                            job.getSsid() != null ? job.getSsid() : "");
-
-                    if (token.startsWith(encJob)) {
-                        String password = token.substring(token.lastIndexOf(':') + 1);
-                        post(() -> setPassword(job, password));
-
-                        // Manually stop the job only if there other jobs pending
-                        if (jobs.size() > 1) {
-                            jobs.remove(job);
-                            post(() -> {
-                                // By removing from job queue this job will not be
-                                // scheduled again after this processing is done.
-                                jobQueue.remove(job);
-                                job.setState(Job.State.NOT_RUNNING);
-                            });
-                        }
-                        break;
-                    }
+        final long startTime = SystemClock.elapsedRealtime();
+        long lastCheckpoint = SystemClock.elapsedRealtime();
+
+        // Set on the last job of the group cracked by any worker
+        boolean allCracked = false;
+
+        Progress last = new Progress(0, 0, 0, 0);
+
+        GroupProgress(Feed feed, List<Job> jobs, List<Worker> workers, RunStats stats) {
+            this.feed = feed;
+            this.allJobs = jobs;
+            this.jobs = new CopyOnWriteArrayList<>(jobs);
+            this.workers = workers;
+            this.stats = stats;
+            this.salts = new Salts(jobs);
+        }
+
+        synchronized Progress getLast() {
+            return last;
+        }
+
+        // Words tried from start of the list without a gap, workers
+        // past the first unfinished one are not counted
+        synchronized long getResumeOffset() {
+            long offset = feed.skip;
+            for (Worker worker : workers) {
+                if (worker.state == 5 && worker.shard.count > 0)
+                    offset += worker.shard.count;
+                else {
+                    offset += salts.toWords(worker.progress);
+                    break;
                 }
             }
+            return offset;
+        }
 
-            // Progress token
-            switch (token) {
-                case "STATUS":
-                    progress.state = scanner.nextInt();
-                    break;
+        synchronized void onStatus(Worker worker, OutputParser.Status status) {
+            // Threads are running by now, set their priority
+            if (!worker.reported) {
+                worker.reported = true;
+                priority.apply();
+            }
 
-                case "SPEED":
-                    progress.speed = scanner.nextInt();
-                    break;
+            worker.state = status.state;
+            worker.speed = status.speed;
+            worker.progress = status.progress;
+            worker.progressTotal = status.progressTotal;
+            worker.telemetry = status.snapshot();
+
+            // Update state on first progress line
+            if (firstProgress) {
+                metrics.histogram("hashcat.first_progress_ms")
+                        .record(SystemClock.elapsedRealtime() - startTime);
+                setState(jobs, Job.State.RUNNING);
+                firstProgress = false;
+            }
 
-                case "PROGRESS":
-                    progress.nr_complete = scanner.nextLong();
+            // Count skipped words as completed
+            long complete = salts.toProgress(feed.skip);
+            long speed = 0;
+            long progressTotal = 0;
+            boolean allReported = true;
+            boolean allExhausted = true;
+            List<Telemetry> telemetry = new ArrayList<>(workers.size());
+            for (Worker w : workers) {
+                complete += w.progress;
+                speed += w.speed;
+                progressTotal += w.progressTotal;
+                allReported &= w.progressTotal > 0;
+                allExhausted &= w.state == 5;
+                if (w.telemetry != null)
+                    telemetry.add(w.telemetry);
+            }
 
-                    // Update state on first progress line
-                    if (firstProgress) {
-                        setState(jobs, Job.State.RUNNING);
-                        firstProgress = false;
-                    }
+            thermal.recordSpeed(speed);
+
+            // Exhausted when all ranges are, running while any is
+            int state = status.state;
+            if (allCracked || status.state == 6)
+                state = 6;
+            else if (state == 5 && !allExhausted)
+                state = 3;
+
+            long total = 0;
+
+            // Update total number if possible. Hashcat knows it
+            // when reading the file by itself.
+            Long words = feed.getNrWords();
+            if (feed.directPath != null && allReported)
+                words = salts.toWords(progressTotal) + feed.skip;
+            if (words != null) {
+                // Update progress total, adjusted to number of salts
+                total = salts.toProgress(words);
+
+                // On exhausted state (gone thru word list but didn't find anything)
+                // update number of words to number completed.
+                if (state == 5 && total != complete)
+                    feed.setExhausted(salts.toWords(complete));
+            }
 
-                    // Update total number if possible
-                    Long words = wordList.getNrWords();
-                    if (words != null) {
-                        // Adjust to number of jobs
-                        words *= nrJobs;
+            // Save position from time to time, process may be killed
+            long now = SystemClock.elapsedRealtime();
+            if (now - lastCheckpoint >= CHECKPOINT_INTERVAL_MS) {
+                lastCheckpoint = now;
+                checkpoint(jobs, getResumeOffset(), feed);
+            }
 
-                        // Update progress total
-                        progress.total = words;
+            stats.addSpeed(speed);
 
-                        // On exhausted state (gone thru word list but didn't find anything)
-                        // update number of words to number completed. It will be used
-                        // next time, as total number, for better precision.
-                        if (progress.state == 5 && words != progress.nr_complete)
-                            wordList.setNrWords(progress.nr_complete / nrJobs);
-                    }
+            Telemetry merged = Telemetry.merge(telemetry);
+            recordTelemetry(merged);
 
-                    //Log.d("HashCat", "---> " + progress);
+            Progress progress = new Progress(state, (int)speed, complete, total, merged);
+            //Log.d("HashCat", "---> " + progress);
 
-                    // This is the last interesting token in progress line,
-                    // notify user
-                    setProgress(jobs, progress);
-                    break;
+            history.add(progress);
+            last = progress;
+            setProgress(jobs, progress);
+        }
+
+        synchronized void onPassword(Job job, String password) {
+            // Found again by another worker
+            if (!jobs.contains(job))
+                return;
+
+            post(() -> setPassword(job, password));
+            checkpoint(Collections.singletonList(job), 0, feed);
+
+            // Manually stop the job only if there other jobs pending
+            if (jobs.size() > 1) {
+                jobs.remove(job);
+                post(() -> {
+                    // By removing from job queue this job will not be
+                    // scheduled again after this processing is done.
+                    jobQueue.remove(job);
+                    job.setState(Job.State.NOT_RUNNING);
+                });
+            }
+            else if (workers.size() > 1) {
+                // Group is done, other workers would search on
+                allCracked = true;
+                last = new Progress(6, last.speed, last.nr_complete, last.total, last.telemetry);
+                stopProcess();
             }
         }
     }
+
+    // Speed and battery samples of a session
+    private static class RunStats {
+        final Date started = new Date();
+        final long startTime = SystemClock.elapsedRealtime();
+        final TuningProfile profile;
+        final EnergyMeter energy = new EnergyMeter(new File("/"));
+        long nrSamples = 0;
+        long speedSum = 0;
+        long peakSpeed = 0;
+
+        RunStats(TuningProfile profile) {
+            this.profile = profile;
+            energy.start(startTime);
+        }
+
+        void addSpeed(long speed) {
+            ++nrSamples;
+            speedSum += speed;
+            peakSpeed = Math.max(peakSpeed, speed);
+            energy.sample(SystemClock.elapsedRealtime());
+        }
+    }
+
+    // Number of sessions kept in history
+    private static final int RUN_HISTORY_SIZE = 1000;
+
+    private void recordRun(WordList wordList, List<Job> jobs, long skip,
+                           RunStats stats, @Nullable Progress progress)
+    {
+        String outcome;
+        if (progress == null)
+            outcome = RunHistory.FAILED;
+        else if (progress.state == 6)
+            outcome = RunHistory.CRACKED;
+        else if (progress.state == 5)
+            outcome = RunHistory.EXHAUSTED;
+        else if (budgetExpired || yieldRequested)
+            outcome = RunHistory.YIELDED;
+        else
+            outcome = RunHistory.STOPPED;
+
+        Salts salts = new Salts(jobs);
+        long wordsTried = progress != null ?
+                Math.max(0, salts.toWords(progress.nr_complete) - skip) : 0;
+
+        stats.energy.sample(SystemClock.elapsedRealtime());
+
+        RunHistory run = new RunHistory(wordList.getUri(), jobs.size(), salts.size(), stats.started,
+                SystemClock.elapsedRealtime() - stats.startTime, wordsTried,
+                stats.nrSamples > 0 ? stats.speedSum / stats.nrSamples : 0,
+                stats.peakSpeed, outcome, stats.profile.getParams(),
+                stats.energy.getJoules(), stats.energy.getMah());
+        Log.d("HashCat", "run: " + run);
+
+        // Zero while charging or without battery readings
+        if (run.getEnergyJ() > 0) {
+            metrics.gauge("energy.joules").set(run.getEnergyJ());
+            metrics.gauge("energy.hashes_per_joule").set(run.getHashesPerJoule());
+            metrics.gauge("energy.mah_per_million").set(run.getMahPerMillion());
+        }
+
+        AppDatabase.databaseExecutor.execute(() -> {
+            RunHistoryDao dao = AppDatabase.getDatabase(App.getContext()).runHistoryDao();
+            dao.insert(run);
+            dao.prune(RUN_HISTORY_SIZE);
+        });
+    }
+
+    private void recordFeed(FeedPipeline.Stats stats) {
+        Log.d("HashCat", "feed: " + stats);
+
+        metrics.counter("feed.bytes").add(stats.bytes);
+        metrics.counter("feed.producer_stall_ms").add(stats.producerStallNanos / 1_000_000);
+        metrics.counter("feed.consumer_stall_ms").add(stats.consumerStallNanos / 1_000_000);
+        if (stats.elapsedNanos > 0)
+            metrics.gauge("feed.mb_per_sec").set(stats.bytes * 1e3 / stats.elapsedNanos);
+    }
+
+    // Latest values, history keeps them over time
+    private void recordTelemetry(Telemetry telemetry) {
+        metrics.gauge("hashcat.rejected").set(telemetry.rejected);
+        metrics.gauge("hashcat.rejected_ratio").set(telemetry.getRejectedRatio());
+        metrics.gauge("hashcat.util_pct").set(telemetry.getMeanUtil());
+        metrics.gauge("hashcat.temp_max_c").set(telemetry.getMaxTemp());
+
+        for (int i = 0; i < telemetry.devices.size(); ++i) {
+            Telemetry.Device device = telemetry.devices.get(i);
+            String prefix = "hashcat.device" + (i + 1) + ".";
+            metrics.gauge(prefix + "speed").set(device.speed);
+            metrics.gauge(prefix + "util_pct").set(device.util);
+            metrics.gauge(prefix + "temp_c").set(device.temp);
+            metrics.histogram(prefix + "exec_runtime_us").record(Math.round(device.execRuntimeMs * 1000));
+        }
+    }
+
+    private void setState(List<Job> jobs, Job.State state) {
+        post(() -> jobs.forEach(job -> job.setState(state)));
+    }
+
+    private void setProgress(List<Job> jobs, Progress progress) {
+        progressDispatcher.publish(jobs, progress);
+    }
+
+    // Save position in word list to resume from, counted in words of
+    // the feed
+    private void checkpoint(List<Job> jobs, long nrWords, Feed feed) {
+        List<Job> copy = new ArrayList<>(jobs);
+        post(() -> copy.forEach(job -> job.setResumeOffset(nrWords, feed.key)));
+    }
+
+    // Identifies the words hashcat gets from a word list: the filter
+    // config, empty if fed as is. Positions are only valid in the feed
+    // they were counted in.
+    static String getFeedKey() {
+        return App.settings().getBoolean("filter_wordlist", true) ? CandidateFilter.CONFIG : "";
+    }
+
+    private void setPassword(Job job, String password) {
+        post(() -> {
+            job.setPassword(password);
+            HashCatService.showPassword(job, password);
+        });
+    }
+
+    private void setError(Exception err) {
+        if (errorListener != null)
+            post(() -> errorListener.onError(err));
+        else
+            err.printStackTrace();
+    }
+
+    private WordList getWordList(Uri uri) {
+        WordList wordList = WordListManager.getInstance().getOrCreate(uri);
+        // Exact number of words is counted while feeding hashcat,
+        // until then estimate it from a sample
+        if (wordList.getNrWords() == null && wordList.getEstimatedWords() == null) {
+            poolExecutor.execute(() -> {
+                try {
+                    Long words = Streams.estimateWords(wordList.getUri());
+                    post(() -> wordList.setEstimatedWords(words));
+                }
+                catch (Exception e) {
+                    Log.w("HashCat", "estimate: " + e.getMessage());
+                }
+            });
+        }
+        return wordList;
+    }
 }
@@ -16,6 +16,9 @@ import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
+import com.talybin.aircat.core.Metrics;
+import com.talybin.aircat.core.Progress;
+
 import java.util.List;
 
 public class HashCatService extends Service {
@@ -47,12 +50,14 @@ public class HashCatService extends Service {
         if (pm != null && wakeLock == null)
             wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "HashCatService::lock");
 
-        enableWakeLock(App.settings().getBoolean("wake_lock", false));
+        restoreWakeLock();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        // Jobs are done for now, nothing should wait in memory
+        WriteBehind.getInstance().flush();
         enableWakeLock(false);
         wakeLock = null;
     }
@@ -64,6 +69,7 @@ public class HashCatService extends Service {
         if (action != null) {
             switch (action) {
                 case ACTION_START:
+                    lastNrJobs = lastPermille = -1;
                     createProgressBuilder();
                     break;
 
@@ -97,12 +103,23 @@ public class HashCatService extends Service {
     }
 
     public static void stop() {
+        // Kept in foreground for the whole run window, otherwise the
+        // process is cached between groups once the window job is stopped
+        if (RunWindow.getInstance().isOpen())
+            return;
+
         Context context = App.getContext();
         Intent intent = new Intent(context, HashCatService.class);
 
         context.stopService(intent);
     }
 
+    // Held as set in settings, and always in a run window
+    public static void restoreWakeLock() {
+        enableWakeLock(App.settings().getBoolean("wake_lock", false) ||
+                RunWindow.getInstance().isOpen());
+    }
+
     public static void enableWakeLock(boolean enable) {
         if (wakeLock != null) {
             if (wakeLock.isHeld()) {
@@ -114,18 +131,32 @@ public class HashCatService extends Service {
         }
     }
 
-    public static void showProgress(List<Job> jobs, HashCat.Progress progress) {
-        Context context = App.getContext();
-        Intent intent = new Intent(context, HashCatService.class);
-        intent.setAction(ACTION_PROGRESS);
+    // Last shown progress, skip updates not visible in notification
+    private static int lastNrJobs = -1;
+    private static int lastPermille = -1;
+
+    public static void showProgress(List<Job> jobs, Progress progress) {
+        Metrics.get().counter("notification.progress_requests").inc();
 
         float percentComplete = 0;
         if (progress.total > 0)
             percentComplete = progress.nr_complete * 100.f / progress.total;
 
+        // Notification shows one decimal
+        int permille = Math.round(percentComplete * 10);
+        if (jobs.size() == lastNrJobs && permille == lastPermille)
+            return;
+        lastNrJobs = jobs.size();
+        lastPermille = permille;
+
+        Context context = App.getContext();
+        Intent intent = new Intent(context, HashCatService.class);
+        intent.setAction(ACTION_PROGRESS);
+
         intent.putExtra("nr_jobs", jobs.size());
         intent.putExtra("percent", percentComplete);
 
+        Metrics.get().counter("notification.progress_posted").inc();
         context.startService(intent);
     }
 
@@ -9,13 +9,22 @@ import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
+import com.talybin.aircat.core.HashFormat;
+import com.talybin.aircat.core.PmkidHash;
+import com.talybin.aircat.core.Progress;
+
 import java.util.Objects;
 
-@Entity(tableName = "job_table")
-public class Job {
+@Entity(tableName = "job_table", indices = {
+        @Index("word_list"),    // Grouping by word list
+        @Index("ssid"),         // Lookup and sorting by network
+        @Index("queued"),       // Jobs to resume on start
+})
+public class Job implements PmkidHash {
 
     public enum State {
         NOT_RUNNING,
@@ -45,12 +54,17 @@ public class Job {
         }
     }
 
+    // Scheduling priorities, higher runs first
+    static final int PRIORITY_LOW = -1;
+    static final int PRIORITY_NORMAL = 0;
+    static final int PRIORITY_HIGH = 1;
+
     public interface StateListener {
         void onStateChange(Job job);
     }
 
     public interface ProgressListener {
-        void onProgressChange(Job job, HashCat.Progress progress);
+        void onProgressChange(Job job, Progress progress);
     }
 
     @PrimaryKey
@@ -85,6 +99,24 @@ public class Job {
     @Nullable
     private String password;
 
+    // Number of words of the word list already tried, used to resume
+    // the job after stop or process death
+    @ColumnInfo(name = "resume_offset", defaultValue = "0")
+    private long resumeOffset;
+
+    // Filter the offset counts words of, see HashCat.getFeedKey().
+    // Null if saved before the key was kept.
+    @ColumnInfo(name = "resume_filter")
+    @Nullable
+    private String resumeFilter;
+
+    // Job was queued or running, restored on next start
+    @ColumnInfo(name = "queued", defaultValue = "0")
+    private boolean queued;
+
+    @ColumnInfo(name = "priority", defaultValue = "0")
+    private int priority;
+
     @Ignore
     private State state = State.NOT_RUNNING;
 
@@ -92,11 +124,12 @@ public class Job {
     private StateListener stateListener = null;
 
     @Ignore
-    private HashCat.Progress progress = null;
+    private Progress progress = null;
 
     @Ignore
     private ProgressListener progressListener = null;
 
+    @Ignore
     public Job(
             @NonNull String pmkId,
             @Nullable String ssid,
@@ -104,6 +137,21 @@ public class Job {
             @NonNull String clientMac,
             @Nullable Uri uri,
             @Nullable String password)
+    {
+        this(pmkId, ssid, apMac, clientMac, uri, password, 0, null, false, PRIORITY_NORMAL);
+    }
+
+    public Job(
+            @NonNull String pmkId,
+            @Nullable String ssid,
+            @NonNull String apMac,
+            @NonNull String clientMac,
+            @Nullable Uri uri,
+            @Nullable String password,
+            long resumeOffset,
+            @Nullable String resumeFilter,
+            boolean queued,
+            int priority)
     {
         this.pmkId = pmkId;
         this.ssid = ssid;
@@ -111,15 +159,21 @@ public class Job {
         this.clientMac = clientMac;
         this.uri = uri;
         this.password = password;
+        this.resumeOffset = resumeOffset;
+        this.resumeFilter = resumeFilter;
+        this.queued = queued;
+        this.priority = priority;
     }
 
     @NonNull
-    String getPmkId() {
+    @Override
+    public String getPmkId() {
         return pmkId;
     }
 
     @Nullable
-    String getSsid() {
+    @Override
+    public String getSsid() {
         return ssid;
     }
 
@@ -129,17 +183,22 @@ public class Job {
     }
 
     @NonNull
-    String getApMac() {
+    @Override
+    public String getApMac() {
         return apMac;
     }
 
     @NonNull
-    String getClientMac() {
+    @Override
+    public String getClientMac() {
         return clientMac;
     }
 
     void setUri(@Nullable Uri uri) {
         this.uri = uri;
+        // Offset is meaningless in another word list
+        this.resumeOffset = 0;
+        this.resumeFilter = null;
         writeChanges();
     }
 
@@ -163,6 +222,43 @@ public class Job {
         return password;
     }
 
+    long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    // Offset if counted in words of the given feed, otherwise start over
+    long getResumeOffset(@NonNull String feedKey) {
+        return resumeFilter == null || resumeFilter.equals(feedKey) ? resumeOffset : 0;
+    }
+
+    @Nullable
+    String getResumeFilter() {
+        return resumeFilter;
+    }
+
+    void setResumeOffset(long resumeOffset, @NonNull String feedKey) {
+        if (resumeOffset != this.resumeOffset || !feedKey.equals(resumeFilter)) {
+            this.resumeOffset = resumeOffset;
+            this.resumeFilter = feedKey;
+            writeChanges();
+        }
+    }
+
+    boolean isQueued() {
+        return queued;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    void setPriority(int priority) {
+        if (priority != this.priority) {
+            this.priority = priority;
+            writeChanges();
+        }
+    }
+
     void setState(State state) {
         if (state != this.state) {
             this.state = state;
@@ -171,6 +267,15 @@ public class Job {
             if (state == State.NOT_RUNNING)
                 setProgress(null);
 
+            // Remember queued jobs to restore them after process death
+            if (isProcessing() != queued) {
+                queued = isProcessing();
+                writeChanges();
+            }
+
+            // Jobs in work are kept in memory
+            JobManager.getInstance().onStateChange(this);
+
             if (stateListener != null)
                 stateListener.onStateChange(this);
         }
@@ -193,11 +298,7 @@ public class Job {
     // Return hash in hashcat format: <pmkid>*<ap mac>*<client mac>*<ssid as hex>
     @NonNull
     String getHash() {
-        return String.format("%s*%s*%s*%s",
-                pmkId,
-                apMac.replace(":", ""),
-                clientMac.replace(":", ""),
-                Utils.toHexSequence(ssid != null ? ssid : ""));
+        return HashFormat.format(this);
     }
 
     StateListener getStateListener() {
@@ -218,11 +319,11 @@ public class Job {
     }
 
     @Nullable
-    HashCat.Progress getProgress() {
+    Progress getProgress() {
         return progress;
     }
 
-    void setProgress(HashCat.Progress progress) {
+    void setProgress(Progress progress) {
         this.progress = progress;
         if (progressListener != null)
             progressListener.onProgressChange(this, progress);
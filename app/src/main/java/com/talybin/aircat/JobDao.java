@@ -1,11 +1,14 @@
 package com.talybin.aircat;
 
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 
@@ -17,9 +20,15 @@ public interface JobDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     void insert(Job job);
 
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insert(List<Job> jobs);
+
     @Delete
     void delete(Job job);
 
+    @Delete
+    void delete(List<Job> jobs);
+
     @Query("DELETE FROM job_table")
     void deleteAll();
 
@@ -29,6 +38,23 @@ public interface JobDao {
     @Query("SELECT * FROM job_table")
     List<Job> getJobs();
 
+    @Query("SELECT * FROM job_table WHERE pmkid IN (:ids)")
+    List<Job> getJobs(List<String> ids);
+
+    // Jobs to resume after process death
+    @Query("SELECT * FROM job_table WHERE queued = 1")
+    List<Job> getQueuedJobs();
+
+    // Job list as built by JobListQuery
+    @RawQuery(observedEntities = Job.class)
+    DataSource.Factory<Integer, Job> getJobsPaged(SupportSQLiteQuery query);
+
+    @RawQuery
+    List<String> getIds(SupportSQLiteQuery query);
+
     @Update
     void update(Job job);
+
+    @Update
+    void update(List<Job> jobs);
 }
@@ -28,6 +28,7 @@ import android.widget.Toast;
 
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -73,13 +74,18 @@ public class JobDetailsFragment extends Fragment implements Job.StateListener {
             return;
         }
 
-        setJob(JobManager.getInstance().get(key));
-
         // Alternatives for recovered password
         bottomDialog = new BottomSheetDialog(requireContext());
         bottomDialog.setContentView(R.layout.job_item_bottom_sheet);
 
         setupBottomDialog();
+
+        // Job not in work is read from database
+        JobManager.getInstance().resolve(Collections.singletonList(key), jobs -> {
+            // Left meanwhile
+            if (getView() != null)
+                setJob(jobs.isEmpty() ? null : jobs.get(0));
+        });
     }
 
     private void setJob(Job job) {
@@ -115,6 +121,7 @@ public class JobDetailsFragment extends Fragment implements Job.StateListener {
         ((TextView)view.findViewById(R.id.job_details_pmkid)).setText(job.getPmkId());
         ((TextView)view.findViewById(R.id.job_details_wordlist)).setText(
                 WordList.getFileName(job.getUri()));
+        showEnergy(job.getUri());
 
         // Click listeners
         jobItem.setOnClickListener(v -> showPasswordDialog());
@@ -124,6 +131,27 @@ public class JobDetailsFragment extends Fragment implements Job.StateListener {
         requireActivity().invalidateOptionsMenu();
     }
 
+    // Energy figures of the latest measured session on the word list
+    private void showEnergy(Uri uri) {
+        if (uri == null)
+            return;
+        View view = requireView();
+        AppDatabase.databaseExecutor.execute(() -> {
+            RunHistory run = AppDatabase.getDatabase(App.getContext()).runHistoryDao().getLastMeasured(uri);
+            if (run == null)
+                return;
+            view.post(() -> {
+                // Left meanwhile
+                if (!isAdded())
+                    return;
+                ((TextView)view.findViewById(R.id.job_details_energy)).setText(
+                        getString(R.string.energy_figures, run.getHashesPerJoule(),
+                                run.getMahPerMillion(), run.getProfile()));
+                view.findViewById(R.id.job_details_energy_info).setVisibility(View.VISIBLE);
+            });
+        });
+    }
+
     @Override
     public void onDestroyView() {
         job = null;
@@ -9,25 +9,58 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.talybin.aircat.core.Progress;
+
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
-public class JobListAdapter
-        extends RecyclerView.Adapter<RecyclerView.ViewHolder>
-{
+// Rows are diffed in background on list changes. State, progress and
+// selection changes rebind only the affected part of the row.
+public class JobListAdapter extends PagedListAdapter<Job, JobListAdapter.JobViewHolder> {
 
     interface Listener {
         void onItemClick(JobViewHolder holder);
         boolean onItemLongClick(JobViewHolder holder);
     }
 
+    // Partial bind payloads
+    private static final Object PAYLOAD_STATE = new Object();
+    private static final Object PAYLOAD_PROGRESS = new Object();
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    // Rows of jobs in work are mapped to the instances in memory, whose
+    // changes are delivered by listeners. Other rows are new instances on
+    // every load, compared by what the row shows.
+    private static final DiffUtil.ItemCallback<Job> DIFF_CALLBACK = new DiffUtil.ItemCallback<Job>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Job oldItem, @NonNull Job newItem) {
+            return oldItem.getPmkId().equals(newItem.getPmkId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Job oldItem, @NonNull Job newItem) {
+            // Progress is replaced on update, never changed
+            return oldItem.getState() == newItem.getState() &&
+                    oldItem.getProgress() == newItem.getProgress() &&
+                    Objects.equals(oldItem.getPassword(), newItem.getPassword()) &&
+                    oldItem.getPriority() == newItem.getPriority();
+        }
+    };
+
     static class JobViewHolder
             extends RecyclerView.ViewHolder
             implements Job.StateListener, Job.ProgressListener
     {
+        private final JobListAdapter adapter;
+
         private TextView ssid;
         private TextView password;
         private TextView state;
@@ -36,8 +69,12 @@ public class JobListAdapter
         private TextView estTime;
         private ProgressBar progressBar;
 
-        JobViewHolder(@NonNull View itemView) {
+        // Job shown, null for placeholder
+        private Job job = null;
+
+        JobViewHolder(@NonNull View itemView, JobListAdapter adapter) {
             super(itemView);
+            this.adapter = adapter;
 
             ssid = itemView.findViewById(R.id.job_item_ssid);
             password = itemView.findViewById(R.id.job_item_password);
@@ -48,26 +85,47 @@ public class JobListAdapter
             estTime = itemView.findViewById(R.id.job_item_est_time);
         }
 
-        void bindData(Job job) {
+        void bindData(@Nullable Job job) {
+            this.job = job;
+            if (job == null) {
+                // Not loaded yet
+                ssid.setText(null);
+                state.setText(null);
+                bindProgress(null);
+                return;
+            }
+
             ssid.setText(job.getSsid());
 
             job.setStateListener(this);
             job.setProgressListener(this);
 
-            onStateChange(job);
-            onProgressChange(job, job.getProgress());
+            bindState();
+            bindProgress(job.getProgress());
         }
 
+        // Listeners of a job stay after the holder has been rebound to
+        // another one, ignore them
         @Override
         public void onStateChange(Job job) {
+            if (job == this.job)
+                adapter.notifyJobChanged(this, PAYLOAD_STATE);
+        }
+
+        @Override
+        public void onProgressChange(Job job, Progress progress) {
+            if (job == this.job)
+                adapter.notifyJobChanged(this, PAYLOAD_PROGRESS);
+        }
+
+        void bindState() {
             Job.State jobState = job.getState();
 
             state.setText(jobState.toString());
             progressBar.setIndeterminate(jobState == Job.State.STARTING);
         }
 
-        @Override
-        public void onProgressChange(Job job, HashCat.Progress progress) {
+        void bindProgress(@Nullable Progress progress) {
             Context context = itemView.getContext();
 
             float percentComplete = 0;
@@ -91,7 +149,7 @@ public class JobListAdapter
             estTime.setText(context.getString(R.string.estimated_time, estimated >= 0 ?
                     DateUtils.formatElapsedTime(estimated) : context.getString(android.R.string.unknownName)));
 
-            String pw = job.getPassword();
+            String pw = job != null ? job.getPassword() : null;
             if (pw != null) {
                 password.setText(pw);
                 password.setVisibility(View.VISIBLE);
@@ -101,97 +159,92 @@ public class JobListAdapter
         }
     }
 
-    static class EmptyViewHolder extends RecyclerView.ViewHolder {
-
-        EmptyViewHolder(@NonNull View itemView) {
-            super(itemView);
-        }
-    }
-
     private Listener listener;
 
-    private List<Job> jobs; // Cached copy of jobs
-    private Set<Integer> selectedItems = new HashSet<>();
+    // Selected jobs by id, stays valid while the list changes
+    private Set<String> selectedIds = new HashSet<>();
 
     JobListAdapter(Listener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
     }
 
     @NonNull
     @Override
-    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(viewType, parent, false);
-        if (viewType == R.layout.job_list_empty)
-            return new EmptyViewHolder(view);
-        else {
-            JobViewHolder holder = new JobViewHolder(view);
+    public JobViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.job_list_item, parent, false);
+        JobViewHolder holder = new JobViewHolder(view, this);
 
-            view.setOnClickListener(v -> listener.onItemClick(holder));
-            view.setOnLongClickListener(v -> listener.onItemLongClick(holder));
+        view.setOnClickListener(v -> listener.onItemClick(holder));
+        view.setOnLongClickListener(v -> listener.onItemLongClick(holder));
 
-            return holder;
-        }
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        if (holder.getItemViewType() == R.layout.job_list_item) {
-            JobViewHolder jobHolder = (JobViewHolder)holder;
-            jobHolder.bindData(jobs.get(position));
-            // What magic is this?
-            jobHolder.itemView.setSelected(selectedItems.contains(position));
-        }
-
+    public void onBindViewHolder(@NonNull JobViewHolder holder, int position) {
+        Job job = getItem(position);
+        holder.bindData(job);
+        // What magic is this?
+        holder.itemView.setSelected(job != null && selectedIds.contains(job.getPmkId()));
     }
 
     @Override
-    public int getItemCount() {
-        if (jobs != null && jobs.size() > 0)
-            return jobs.size();
-        // If no jobs present use empty view
-        return 1;
+    public void onBindViewHolder(@NonNull JobViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || holder.job == null || holder.job != getItem(position)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_STATE)
+                holder.bindState();
+            else if (payload == PAYLOAD_PROGRESS)
+                holder.bindProgress(holder.job.getProgress());
+            else if (payload == PAYLOAD_SELECTION)
+                holder.itemView.setSelected(selectedIds.contains(holder.job.getPmkId()));
+        }
     }
 
-    @Override
-    public int getItemViewType(int pos) {
-        return jobs != null && jobs.size() > 0 ?
-                R.layout.job_list_item : R.layout.job_list_empty;
+    private void notifyJobChanged(JobViewHolder holder, Object payload) {
+        int pos = holder.getAdapterPosition();
+        if (pos != RecyclerView.NO_POSITION)
+            notifyItemChanged(pos, payload);
     }
 
-    void setJobs(List<Job> jobs) {
-        this.jobs = jobs;
-        clearSelections();
-        notifyDataSetChanged();
+    @Nullable
+    Job getJob(int position) {
+        return position >= 0 && position < getItemCount() ? getItem(position) : null;
     }
 
-    List<Job> getJobs() {
-        return this.jobs;
-    }
+    // Return false if there is no job at position yet
+    boolean toggleSelection(int pos) {
+        Job job = getJob(pos);
+        if (job == null)
+            return false;
 
-    void toggleSelection(int pos) {
-        if (selectedItems.contains(pos))
-            selectedItems.remove(pos);
-        else
-            selectedItems.add(pos);
-        notifyItemChanged(pos);
+        if (!selectedIds.remove(job.getPmkId()))
+            selectedIds.add(job.getPmkId());
+        notifyItemChanged(pos, PAYLOAD_SELECTION);
+        return true;
     }
 
-    void selectRange(int startPos, int count) {
-        for (; count-- > 0; ++startPos)
-            selectedItems.add(startPos);
-        notifyDataSetChanged();
+    void select(Collection<String> ids) {
+        selectedIds.addAll(ids);
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
     }
 
     void clearSelections() {
-        selectedItems.clear();
-        notifyDataSetChanged();
+        if (selectedIds.isEmpty())
+            return;
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
     }
 
     int getSelectedItemCount() {
-        return selectedItems.size();
+        return selectedIds.size();
     }
 
-    Set<Integer> getSelectedItems() {
-        return selectedItems;
+    Set<String> getSelectedIds() {
+        return selectedIds;
     }
 }
@@ -0,0 +1,57 @@
+package com.talybin.aircat;
+
+import android.content.SharedPreferences;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+// Sorting and filtering of the job list, done by the database
+class JobListQuery {
+
+    enum Sort {
+        // Rowid is the order jobs were added in
+        ADDED("rowid"),
+        // Binary collation so the ssid index gives the order,
+        // upper case sorts before lower case
+        SSID("ssid, rowid"),
+        PRIORITY("priority DESC, rowid");
+
+        final String orderBy;
+
+        Sort(String orderBy) {
+            this.orderBy = orderBy;
+        }
+    }
+
+    final Sort sort;
+    final boolean hideCracked;
+
+    JobListQuery(Sort sort, boolean hideCracked) {
+        this.sort = sort;
+        this.hideCracked = hideCracked;
+    }
+
+    static JobListQuery fromSettings(SharedPreferences settings) {
+        Sort sort;
+        try {
+            sort = Sort.valueOf(settings.getString("job_sort", Sort.ADDED.name()));
+        }
+        catch (IllegalArgumentException e) {
+            sort = Sort.ADDED;
+        }
+        return new JobListQuery(sort, settings.getBoolean("hide_cracked", false));
+    }
+
+    void save(SharedPreferences settings) {
+        settings.edit()
+                .putString("job_sort", sort.name())
+                .putBoolean("hide_cracked", hideCracked)
+                .apply();
+    }
+
+    SupportSQLiteQuery select(String columns) {
+        return new SimpleSQLiteQuery("SELECT " + columns + " FROM job_table" +
+                (hideCracked ? " WHERE password IS NULL" : "") +
+                " ORDER BY " + sort.orderBy);
+    }
+}
@@ -1,12 +1,24 @@
 package com.talybin.aircat;
 
+import android.net.Uri;
 import android.os.Handler;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+
+import com.talybin.aircat.core.Registry;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 class JobManager {
 
@@ -22,94 +34,198 @@ class JobManager {
         return instance;
     }
 
-    public interface Listener {
-        void onChange(List<Job> jobs);
-    }
-
     private JobDao jobDao;
-    private List<Job> jobList;
+
+    // Rows per page of job list
+    private static final int PAGE_SIZE = 30;
+
+    // SQLite limits number of query parameters
+    private static final int MAX_QUERY_IDS = 500;
+
+    // Jobs in work (queued, running or stopping) by PMKID, safe to read
+    // from any thread. A job enters on start and leaves once stopped, the
+    // job list shows the others as database rows.
+    private final Registry<String, Job> jobs = new Registry<>(Job::getPmkId);
+    private final Registry<String, Job>.Index<Uri> byUri = jobs.addIndex(Job::getUri);
+    private final Registry<String, Job>.Index<String> bySsid = jobs.addIndex(Job::getSsid);
+    private final Registry<String, Job>.Index<String> byApMac = jobs.addIndex(Job::getApMac);
 
     private Handler uiHandler;
 
-    private Listener listener;
+    // Queued jobs restored, used in UI thread only
+    private boolean loaded = false;
+    private final List<Runnable> onLoaded = new ArrayList<>();
 
     private JobManager() {
         jobDao = AppDatabase.getDatabase(App.getContext()).jobDao();
-        // Avoid crash while loading
-        jobList = new ArrayList<>();
-
         uiHandler = new Handler();
-        listener = null;
 
         AppDatabase.databaseExecutor.execute(() -> {
-            jobList = jobDao.getJobs();
-            uiHandler.post(this::listUpdated);
+            List<Job> rows = jobDao.getQueuedJobs();
+            uiHandler.post(() -> resumeQueued(rows));
         });
     }
 
-    private void listUpdated() {
-        if (listener != null)
-            listener.onChange(jobList);
+    // Restart jobs that were queued or running when process died
+    private void resumeQueued(List<Job> rows) {
+        List<Job> queued = rows.stream()
+                .map(this::attach)
+                .filter(Job::isQueued)
+                .collect(Collectors.toList());
+        if (!queued.isEmpty())
+            HashCat.getInstance().start(queued);
+
+        loaded = true;
+        onLoaded.forEach(Runnable::run);
+        onLoaded.clear();
+    }
+
+    // Run on UI thread once queued jobs are restored
+    void whenLoaded(Runnable r) {
+        if (loaded)
+            r.run();
+        else
+            onLoaded.add(r);
+    }
+
+    // Return instance in memory for the row if the job is in work, so
+    // that running state and progress survive reloading of the job list.
+    // Called from any thread.
+    private Job attach(Job row) {
+        Job job = jobs.get(row.getPmkId());
+        return job != null ? job : row;
     }
 
-    void setListener(Listener listener) {
-        this.listener = listener;
+    // Called on state change of a job, from any thread
+    void onStateChange(Job job) {
+        if (job.getState() != Job.State.NOT_RUNNING)
+            jobs.add(job);
+        // Not a row loaded meanwhile
+        else if (jobs.get(job.getPmkId()) == job)
+            jobs.remove(job);
     }
 
     void removeListeners() {
-        this.listener = null;
-        jobList.forEach(Job::removeListeners);
+        jobs.getAll().forEach(Job::removeListeners);
     }
 
+    // Job list sorted and filtered by query, updated on database changes
+    LiveData<PagedList<Job>> getPagedJobs(JobListQuery query) {
+        PagedList.Config config = new PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setEnablePlaceholders(true)
+                .build();
+        return new LivePagedListBuilder<>(
+                jobDao.getJobsPaged(query.select("*")).map(this::attach), config)
+                .setFetchExecutor(AppDatabase.databaseExecutor)
+                .build();
+    }
+
+    // Ids of all jobs matching query, callback on UI thread
+    void getIds(JobListQuery query, Consumer<List<String>> callback) {
+        AppDatabase.databaseExecutor.execute(() -> {
+            List<String> ids = jobDao.getIds(query.select("pmkid"));
+            uiHandler.post(() -> callback.accept(ids));
+        });
+    }
+
+    // Jobs by ids loading those not in work from database, callback on
+    // UI thread. Deleted jobs are left out.
+    void resolve(Collection<String> ids, Consumer<List<Job>> callback) {
+        List<String> missing = ids.stream()
+                .filter(id -> !jobs.contains(id))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            callback.accept(lookup(ids, Collections.emptyMap()));
+            return;
+        }
+        AppDatabase.databaseExecutor.execute(() -> {
+            Map<String, Job> rows = new HashMap<>();
+            for (int i = 0; i < missing.size(); i += MAX_QUERY_IDS) {
+                List<String> chunk = missing.subList(i, Math.min(missing.size(), i + MAX_QUERY_IDS));
+                jobDao.getJobs(chunk).forEach(row -> rows.put(row.getPmkId(), row));
+            }
+            uiHandler.post(() -> callback.accept(lookup(ids, rows)));
+        });
+    }
+
+    // Jobs in work are preferred to the rows, may have started meanwhile
+    private List<Job> lookup(Collection<String> ids, Map<String, Job> rows) {
+        List<Job> ret = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Job job = jobs.get(id);
+            if (job == null)
+                job = rows.get(id);
+            if (job != null)
+                ret.add(job);
+        }
+        return ret;
+    }
+
+    // Jobs in work, snapshot does not change
     @NonNull
     List<Job> getAll() {
-        return jobList;
+        return jobs.getAll();
     }
 
     @Nullable
     Job get(String id) {
-        for (Job job : jobList) {
-            if (job.getPmkId().equals(id))
-                return job;
-        }
-        return null;
+        return jobs.get(id);
     }
 
-    boolean add(Job job) {
-        // The job list is unique
-        if (get(job.getPmkId()) != null)
-            return false;
+    @NonNull
+    List<Job> getByUri(Uri uri) {
+        return byUri.get(uri);
+    }
 
-        AppDatabase.databaseExecutor.execute(() -> jobDao.insert(job));
-        jobList.add(job);
-        listUpdated();
-        return true;
+    @NonNull
+    List<Job> getBySsid(String ssid) {
+        return bySsid.get(ssid);
+    }
+
+    @NonNull
+    List<Job> getByApMac(String apMac) {
+        return byApMac.get(apMac);
+    }
+
+    // The job list is unique, callback on UI thread with false if already
+    // exist. Only jobs in work are in memory, so the database is checked.
+    void add(Job job, Consumer<Boolean> callback) {
+        if (jobs.contains(job.getPmkId())) {
+            callback.accept(false);
+            return;
+        }
+        AppDatabase.databaseExecutor.execute(() -> {
+            boolean added;
+            // Serialized, a job added meanwhile is in database by then
+            synchronized (this) {
+                added = jobDao.get(job.getPmkId()) == null;
+                if (added) {
+                    // Job list is updated from database, do not wait
+                    WriteBehind.getInstance().insert(job);
+                    WriteBehind.getInstance().flushNow();
+                }
+            }
+            uiHandler.post(() -> callback.accept(added));
+        });
     }
 
     void update(Job job) {
-        AppDatabase.databaseExecutor.execute(() -> jobDao.update(job));
+        // Word list may have changed
+        jobs.update(job);
+        WriteBehind.getInstance().update(job);
     }
 
     void remove(Job job) {
-        if (jobList.remove(job)) {
-            AppDatabase.databaseExecutor.execute(() -> jobDao.delete(job));
-            HashCat.getInstance().stop(job);
-            listUpdated();
-        }
+        remove(Collections.singletonList(job));
     }
 
-    void remove(List<Job> jobs) {
-        if (jobs.size() == jobList.size()) {
-            AppDatabase.databaseExecutor.execute(jobDao::deleteAll);
-            jobList.clear();
-        }
-        else {
-            for (Job job : jobs) {
-                AppDatabase.databaseExecutor.execute(() -> jobDao.delete(job));
-                jobList.remove(job);
-            }
-        }
-        HashCat.getInstance().stop(jobs);
-        listUpdated();
+    void remove(List<Job> list) {
+        // Rows of the job list are not in memory, deleted all the same.
+        // Deleted in one transaction.
+        List<Job> removed = jobs.removeAll(list);
+        list.forEach(WriteBehind.getInstance()::delete);
+        WriteBehind.getInstance().flush();
+        HashCat.getInstance().stop(removed);
     }
 }
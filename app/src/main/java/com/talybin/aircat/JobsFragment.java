@@ -15,15 +15,19 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.view.ActionMode;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
+import androidx.paging.PagedList;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class JobsFragment extends Fragment
@@ -31,6 +35,11 @@ public class JobsFragment extends Fragment
 {
     private JobListAdapter adapter;
     private FloatingActionButton createJobBut;
+    private View emptyView;
+
+    // Sorting and filtering of the list
+    private JobListQuery query;
+    private LiveData<PagedList<Job>> pagedJobs = null;
 
     private NavController navController;
 
@@ -41,6 +50,7 @@ public class JobsFragment extends Fragment
             LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState
     ) {
+        setHasOptionsMenu(true);
         // Inflate the layout for this fragment
         return inflater.inflate(R.layout.fragment_jobs, container, false);
     }
@@ -62,10 +72,12 @@ public class JobsFragment extends Fragment
         // Navigate to job details on view click
         adapter = new JobListAdapter(this);
         jobList.setAdapter(adapter);
-        adapter.setJobs(JobManager.getInstance().getAll());
 
-        // Setup listeners
-        JobManager.getInstance().setListener(adapter::setJobs);
+        // Empty view (visible when job list is empty)
+        emptyView = view.findViewById(R.id.job_list_empty);
+
+        query = JobListQuery.fromSettings(App.settings());
+        observeJobs();
 
         // Create new job button
         createJobBut = view.findViewById(R.id.createNewJobBut);
@@ -79,12 +91,63 @@ public class JobsFragment extends Fragment
         super.onDestroyView();
     }
 
+    // (Re)load job list with current query
+    private void observeJobs() {
+        if (pagedJobs != null)
+            pagedJobs.removeObservers(getViewLifecycleOwner());
+
+        pagedJobs = JobManager.getInstance().getPagedJobs(query);
+        pagedJobs.observe(getViewLifecycleOwner(), list -> adapter.submitList(list, () ->
+                emptyView.setVisibility(list.isEmpty() ? View.VISIBLE : View.GONE)));
+    }
+
+    @Override
+    public void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
+        inflater.inflate(R.menu.job_list_menu, menu);
+    }
+
+    @Override
+    public void onPrepareOptionsMenu(@NonNull Menu menu) {
+        switch (query.sort) {
+            case ADDED: menu.findItem(R.id.sort_added).setChecked(true); break;
+            case SSID: menu.findItem(R.id.sort_ssid).setChecked(true); break;
+            case PRIORITY: menu.findItem(R.id.sort_priority).setChecked(true); break;
+        }
+        menu.findItem(R.id.action_hide_cracked).setChecked(query.hideCracked);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.sort_added:
+                setQuery(new JobListQuery(JobListQuery.Sort.ADDED, query.hideCracked));
+                return true;
+            case R.id.sort_ssid:
+                setQuery(new JobListQuery(JobListQuery.Sort.SSID, query.hideCracked));
+                return true;
+            case R.id.sort_priority:
+                setQuery(new JobListQuery(JobListQuery.Sort.PRIORITY, query.hideCracked));
+                return true;
+            case R.id.action_hide_cracked:
+                setQuery(new JobListQuery(query.sort, !query.hideCracked));
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void setQuery(JobListQuery query) {
+        this.query = query;
+        query.save(App.settings());
+        requireActivity().invalidateOptionsMenu();
+        observeJobs();
+    }
+
     @Override
     public void onItemClick(JobListAdapter.JobViewHolder holder) {
         int position = holder.getAdapterPosition();
         if (actionMode == null) {
             // Show details
-            Job job = adapter.getJobs().get(position);
+            Job job = adapter.getJob(position);
             if (job != null) {
                 Bundle args = new Bundle();
                 args.putString(JobDetailsFragment.KEY_JOB_ID, job.getPmkId());
@@ -109,7 +172,8 @@ public class JobsFragment extends Fragment
     }
 
     private void toggleSelection(int idx) {
-        adapter.toggleSelection(idx);
+        if (!adapter.toggleSelection(idx))
+            return;
 
         if (adapter.getSelectedItemCount() == 0)
             actionMode.finish();
@@ -120,24 +184,31 @@ public class JobsFragment extends Fragment
         }
     }
 
-    private List<Job> getSelectedJobs() {
-        List<Job> allJobs = adapter.getJobs();
-        return adapter.getSelectedItems()
-                .stream().map(allJobs::get).collect(Collectors.toList());
+    // Selected jobs may not be loaded yet, callback on UI thread
+    private void withSelectedJobs(Consumer<List<Job>> callback) {
+        JobManager.getInstance().resolve(new ArrayList<>(adapter.getSelectedIds()), callback);
+    }
+
+    // Only jobs in memory may be processing
+    private long getSelectedProcessingCount() {
+        return adapter.getSelectedIds().stream()
+                .map(JobManager.getInstance()::get)
+                .filter(job -> job != null && job.isProcessing())
+                .count();
     }
 
     private void startSelectedJobs() {
-        HashCat.getInstance().start(
-                getSelectedJobs().stream()
+        withSelectedJobs(jobs -> HashCat.getInstance().start(
+                jobs.stream()
                         .filter(job -> !job.isProcessing())
-                        .collect(Collectors.toList()));
+                        .collect(Collectors.toList())));
     }
 
     private void stopSelectedJobs() {
-        HashCat.getInstance().stop(
-                getSelectedJobs().stream()
+        withSelectedJobs(jobs -> HashCat.getInstance().stop(
+                jobs.stream()
                         .filter(Job::isProcessing)
-                        .collect(Collectors.toList()));
+                        .collect(Collectors.toList())));
     }
 
     @Override
@@ -153,8 +224,7 @@ public class JobsFragment extends Fragment
 
     @Override
     public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
-        long runningCnt = getSelectedJobs().stream()
-                .filter(Job::isProcessing).count();
+        long runningCnt = getSelectedProcessingCount();
 
         menu.findItem(R.id.action_start).setVisible(runningCnt < adapter.getSelectedItemCount());
         menu.findItem(R.id.action_stop).setVisible(runningCnt > 0);
@@ -171,12 +241,16 @@ public class JobsFragment extends Fragment
         switch (item.getItemId()) {
 
             case R.id.action_remove:
-                removeJobs(getSelectedJobs());
+                withSelectedJobs(this::removeJobs);
                 return true;
 
             case R.id.action_select_all:
-                adapter.selectRange(0, adapter.getJobs().size());
-                updateActionMode();
+                JobManager.getInstance().getIds(query, ids -> {
+                    if (actionMode != null) {
+                        adapter.select(ids);
+                        updateActionMode();
+                    }
+                });
                 return true;
 
             case R.id.action_start:
@@ -188,6 +262,10 @@ public class JobsFragment extends Fragment
                 stopSelectedJobs();
                 actionMode.finish();
                 return true;
+
+            case R.id.action_priority:
+                withSelectedJobs(this::setPriority);
+                return true;
         }
         return false;
     }
@@ -199,12 +277,44 @@ public class JobsFragment extends Fragment
         actionMode = null;
     }
 
+    private void setPriority(List<Job> jobs) {
+        // Selection may have ended while loading jobs
+        if (actionMode == null)
+            return;
+
+        // Same order as in priority_entries
+        int[] values = { Job.PRIORITY_HIGH, Job.PRIORITY_NORMAL, Job.PRIORITY_LOW };
+
+        int checked = -1;
+        if (jobs.stream().mapToInt(Job::getPriority).distinct().count() == 1) {
+            for (int i = 0; i < values.length; ++i) {
+                if (values[i] == jobs.get(0).getPriority())
+                    checked = i;
+            }
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.priority)
+                .setSingleChoiceItems(R.array.priority_entries, checked, (dialog, which) -> {
+                    jobs.forEach(job -> job.setPriority(values[which]));
+                    dialog.dismiss();
+                    if (actionMode != null)
+                        actionMode.finish();
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
     private void removeJobs(List<Job> jobs) {
+        if (actionMode == null)
+            return;
+
         new AlertDialog.Builder(requireContext())
                 .setMessage(R.string.remove_selected_jobs)
                 .setPositiveButton(android.R.string.ok, (dialog, which) -> {
                     JobManager.getInstance().remove(jobs);
-                    actionMode.finish();
+                    if (actionMode != null)
+                        actionMode.finish();
                 })
                 .setNegativeButton(android.R.string.cancel, null)
                 .show();
@@ -61,6 +61,18 @@ public class MainActivity extends AppCompatActivity
         //Log.d("MainActivity", "---> onCreate");
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        HashCat.getInstance().setForeground(true);
+    }
+
+    @Override
+    protected void onStop() {
+        HashCat.getInstance().setForeground(false);
+        super.onStop();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -90,6 +102,10 @@ public class MainActivity extends AppCompatActivity
             startActivity(new Intent(MainActivity.this, SettingsActivity.class));
             return true;
         }
+        if (id == R.id.action_diagnostics) {
+            startActivity(new Intent(MainActivity.this, DiagnosticsActivity.class));
+            return true;
+        }
 
         return super.onOptionsItemSelected(item);
     }
@@ -134,8 +150,11 @@ public class MainActivity extends AppCompatActivity
                 getWindow().clearFlags(flags);
         }
         else if (key.equals("wake_lock")) {
-            boolean value = pref.getBoolean(key, false);
-            HashCatService.enableWakeLock(value);
+            HashCatService.restoreWakeLock();
+        }
+        else if (key.equals("deferred_run")) {
+            if (!pref.getBoolean(key, false))
+                RunWindow.getInstance().cancel();
         }
     }
 }
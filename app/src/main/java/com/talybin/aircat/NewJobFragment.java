@@ -24,6 +24,8 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.talybin.aircat.core.Eapol;
+
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -218,10 +220,15 @@ public class NewJobFragment extends Fragment implements ApListAdapter.ClickListe
                         eapol.pmkId, apInfo.ssid, eapol.apMac, eapol.clientMac,
                         WordList.getDefault(), null
                 );
-                if (JobManager.getInstance().add(newJob))
-                    goBack();
-                else
-                    Toast.makeText(getContext(), getString(R.string.job_already_exist), Toast.LENGTH_LONG).show();
+                JobManager.getInstance().add(newJob, added -> {
+                    // Left meanwhile
+                    if (!isAdded())
+                        return;
+                    if (added)
+                        goBack();
+                    else
+                        Toast.makeText(getContext(), getString(R.string.job_already_exist), Toast.LENGTH_LONG).show();
+                });
             }
         }));
 
@@ -0,0 +1,202 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+
+import com.talybin.aircat.core.EnergyMeter;
+
+import java.util.Date;
+import java.util.Locale;
+
+// One hashcat session on a group of jobs sharing a word list
+@Entity(tableName = "run_history", indices = { @Index("word_list") })
+public class RunHistory {
+
+    // Outcomes
+    static final String EXHAUSTED = "exhausted";  // Whole word list tried
+    static final String CRACKED = "cracked";      // All passwords found
+    static final String YIELDED = "yielded";      // Time budget used, back to queue
+    static final String STOPPED = "stopped";
+    static final String FAILED = "failed";
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "word_list")
+    @NonNull
+    @TypeConverters(UriConverter.class)
+    private Uri uri;
+
+    @ColumnInfo(name = "nr_jobs")
+    private int nrJobs;
+
+    // Distinct ssids of the jobs, hashcat tries each word once per salt
+    @ColumnInfo(name = "nr_salts", defaultValue = "0")
+    private int nrSalts;
+
+    @ColumnInfo(name = "started")
+    @NonNull
+    @TypeConverters(DateConverter.class)
+    private Date started;
+
+    @ColumnInfo(name = "duration_ms")
+    private long durationMs;
+
+    // Words tried in this session, not counting skipped ones
+    @ColumnInfo(name = "words_tried")
+    private long wordsTried;
+
+    // Hashes per second, all devices
+    @ColumnInfo(name = "mean_speed")
+    private long meanSpeed;
+
+    @ColumnInfo(name = "peak_speed")
+    private long peakSpeed;
+
+    @ColumnInfo(name = "outcome")
+    @NonNull
+    private String outcome;
+
+    // Workload parameters, see TuningProfile.getParams()
+    @ColumnInfo(name = "profile")
+    @Nullable
+    private String profile;
+
+    // Drawn from battery during the session, 0 if not measured
+    // (charging or no readings)
+    @ColumnInfo(name = "energy_j", defaultValue = "0")
+    private double energyJ;
+
+    @ColumnInfo(name = "charge_mah", defaultValue = "0")
+    private double chargeMah;
+
+    // Energy per profile over sessions that measured it
+    static class ProfileEnergy {
+        @ColumnInfo(name = "profile")
+        String profile;
+
+        @ColumnInfo(name = "hashes")
+        long hashes;
+
+        @ColumnInfo(name = "candidates")
+        long candidates;
+
+        @ColumnInfo(name = "energy_j")
+        double energyJ;
+
+        @ColumnInfo(name = "charge_mah")
+        double chargeMah;
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %.0f H/J, %.3f mAh/M",
+                    profile, EnergyMeter.hashesPerJoule(hashes, energyJ),
+                    EnergyMeter.mahPerMillion(chargeMah, candidates));
+        }
+    }
+
+    RunHistory(@NonNull Uri uri, int nrJobs, int nrSalts, @NonNull Date started,
+               long durationMs, long wordsTried, long meanSpeed, long peakSpeed,
+               @NonNull String outcome, @Nullable String profile, double energyJ,
+               double chargeMah)
+    {
+        this.uri = uri;
+        this.nrJobs = nrJobs;
+        this.nrSalts = nrSalts;
+        this.started = started;
+        this.durationMs = durationMs;
+        this.wordsTried = wordsTried;
+        this.meanSpeed = meanSpeed;
+        this.peakSpeed = peakSpeed;
+        this.outcome = outcome;
+        this.profile = profile;
+        this.energyJ = energyJ;
+        this.chargeMah = chargeMah;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    Uri getUri() {
+        return uri;
+    }
+
+    int getNrJobs() {
+        return nrJobs;
+    }
+
+    int getNrSalts() {
+        return nrSalts;
+    }
+
+    @NonNull
+    Date getStarted() {
+        return started;
+    }
+
+    long getDurationMs() {
+        return durationMs;
+    }
+
+    long getWordsTried() {
+        return wordsTried;
+    }
+
+    long getMeanSpeed() {
+        return meanSpeed;
+    }
+
+    long getPeakSpeed() {
+        return peakSpeed;
+    }
+
+    @NonNull
+    String getOutcome() {
+        return outcome;
+    }
+
+    @Nullable
+    String getProfile() {
+        return profile;
+    }
+
+    double getEnergyJ() {
+        return energyJ;
+    }
+
+    double getChargeMah() {
+        return chargeMah;
+    }
+
+    // One hash per salt and candidate
+    double getHashesPerJoule() {
+        return EnergyMeter.hashesPerJoule(wordsTried * nrSalts, energyJ);
+    }
+
+    double getMahPerMillion() {
+        return EnergyMeter.mahPerMillion(chargeMah, wordsTried);
+    }
+
+    @NonNull
+    public String toString() {
+        return String.format("%s: %d jobs, %d salts, %d ms, %d words, mean %d H/s, " +
+                        "peak %d H/s, %s, %s, %.1f J, %.2f mAh",
+                uri, nrJobs, nrSalts, durationMs, wordsTried, meanSpeed, peakSpeed, outcome,
+                profile, energyJ, chargeMah);
+    }
+}
@@ -0,0 +1,47 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.TypeConverters;
+
+import java.util.List;
+
+@Dao
+public interface RunHistoryDao {
+
+    @Insert
+    void insert(RunHistory run);
+
+    @Query("SELECT * FROM run_history ORDER BY id DESC LIMIT :limit")
+    List<RunHistory> getRecent(int limit);
+
+    @TypeConverters(UriConverter.class)
+    @Query("SELECT * FROM run_history WHERE word_list = :uri ORDER BY id DESC LIMIT :limit")
+    List<RunHistory> getRecent(Uri uri, int limit);
+
+    // Mean speed per salt of the last session that measured any, 0 if none
+    @Query("SELECT mean_speed / nr_salts FROM run_history " +
+            "WHERE mean_speed > 0 AND nr_salts > 0 ORDER BY id DESC LIMIT 1")
+    long getLastSpeedPerSalt();
+
+    // Latest session on the word list that measured energy, null if none
+    @Nullable
+    @TypeConverters(UriConverter.class)
+    @Query("SELECT * FROM run_history WHERE word_list = :uri AND energy_j > 0 ORDER BY id DESC LIMIT 1")
+    RunHistory getLastMeasured(Uri uri);
+
+    // Energy figures per workload profile, most efficient first
+    @Query("SELECT profile, SUM(words_tried * nr_salts) AS hashes, SUM(words_tried) AS candidates, " +
+            "SUM(energy_j) AS energy_j, SUM(charge_mah) AS charge_mah FROM run_history " +
+            "WHERE energy_j > 0 AND profile IS NOT NULL GROUP BY profile " +
+            "ORDER BY SUM(words_tried * nr_salts) / SUM(energy_j) DESC")
+    List<RunHistory.ProfileEnergy> getEnergyPerProfile();
+
+    // Keep the latest sessions only
+    @Query("DELETE FROM run_history WHERE id <= (SELECT MAX(id) FROM run_history) - :keep")
+    void prune(int keep);
+}
@@ -0,0 +1,218 @@
+package com.talybin.aircat;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.util.Log;
+
+import com.talybin.aircat.core.ThermalController;
+import com.talybin.aircat.core.ThermalSensors;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+// Deferred mode: queued jobs wait for a window when the device is
+// charging, idle and cool, e.g. over night. JobScheduler opens the
+// window (see RunWindowJob), it closes when the charger is unplugged,
+// the screen is turned on or the device gets hot. The running group is
+// then stopped at its position and waits for the next window.
+class RunWindow {
+
+    private static RunWindow instance = null;
+
+    static RunWindow getInstance() {
+        if (instance == null) {
+            synchronized (RunWindow.class) {
+                if (instance == null)
+                    instance = new RunWindow();
+            }
+        }
+        return instance;
+    }
+
+    private static final int JOB_ID = 1;
+
+    // Delay of next try when the device was not cool enough
+    private static final long RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(15);
+
+    // Interval between temperature checks while open
+    private static final long CHECK_INTERVAL_MS = 60_000;
+
+    private final Handler handler = new Handler();
+    private final ThermalSensors sensors = new ThermalSensors(new File("/"));
+
+    // Used in UI thread only
+    private boolean open = false;
+
+    // Window job kept running while the window is open, so the process
+    // is not killed before hashcat service starts. Null if none.
+    private JobService jobService = null;
+    private JobParameters jobParams = null;
+
+    private final BroadcastReceiver lapseReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Log.d("RunWindow", "lapsed: " + intent.getAction());
+            close(true);
+        }
+    };
+
+    private final Runnable checkTask = new Runnable() {
+        @Override
+        public void run() {
+            if (isHot()) {
+                Log.d("RunWindow", "lapsed: hot");
+                close(true);
+            }
+            else
+                handler.postDelayed(this, CHECK_INTERVAL_MS);
+        }
+    };
+
+    private RunWindow() {
+    }
+
+    boolean isEnabled() {
+        return App.settings().getBoolean("deferred_run", false);
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    // Jobs have to wait for a window
+    boolean isHeld() {
+        return isEnabled() && !open;
+    }
+
+    // Schedule a window for queued jobs, unless already scheduled or
+    // being opened
+    void request() {
+        if (jobParams == null)
+            schedule(0);
+    }
+
+    // Deferred mode turned off, run queued jobs now
+    void cancel() {
+        JobScheduler scheduler = App.getContext().getSystemService(JobScheduler.class);
+        if (scheduler != null)
+            scheduler.cancel(JOB_ID);
+        close(false);
+        HashCat.getInstance().resume();
+    }
+
+    // Called by RunWindowJob when charging and idle. The process may
+    // have been started for the job, so the window opens once queued
+    // jobs are restored.
+    void onJobStarted(JobService service, JobParameters params) {
+        jobService = service;
+        jobParams = params;
+        JobManager.getInstance().whenLoaded(this::onConstraintsMet);
+    }
+
+    // Stopped by the system, e.g. its time limit. A running group is kept
+    // alive by hashcat service.
+    void onJobStopped() {
+        jobService = null;
+        jobParams = null;
+    }
+
+    private void onConstraintsMet() {
+        if (open || !isEnabled()) {
+            finishJob();
+            return;
+        }
+        if (!isCool()) {
+            Log.d("RunWindow", "too hot, retry later");
+            finishJob();
+            schedule(RETRY_DELAY_MS);
+            return;
+        }
+
+        Log.d("RunWindow", "open");
+        open = true;
+
+        IntentFilter filter = new IntentFilter(Intent.ACTION_POWER_DISCONNECTED);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        App.getContext().registerReceiver(lapseReceiver, filter);
+        handler.postDelayed(checkTask, CHECK_INTERVAL_MS);
+
+        // JobScheduler stops the window job after its time limit,
+        // the service keeps the process in foreground until closed
+        HashCatService.start();
+        HashCat.getInstance().resume();
+    }
+
+    // Stop the running group, if any, and wait for the next window
+    // if rescheduling
+    void close(boolean reschedule) {
+        if (!open)
+            return;
+
+        Log.d("RunWindow", "close");
+        open = false;
+        App.getContext().unregisterReceiver(lapseReceiver);
+        handler.removeCallbacks(checkTask);
+        finishJob();
+
+        // Otherwise stopped by the running group when done
+        if (!HashCat.getInstance().isGroupRunning())
+            HashCatService.stop();
+
+        if (reschedule) {
+            HashCat.getInstance().yieldGroup();
+            request();
+        }
+    }
+
+    private void finishJob() {
+        if (jobParams != null) {
+            jobService.jobFinished(jobParams, false);
+            jobService = null;
+            jobParams = null;
+        }
+    }
+
+    private void schedule(long delayMs) {
+        Context context = App.getContext();
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || (delayMs == 0 && scheduler.getPendingJob(JOB_ID) != null))
+            return;
+
+        JobInfo.Builder builder = new JobInfo.Builder(JOB_ID,
+                new ComponentName(context, RunWindowJob.class))
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .setRequiresBatteryNotLow(true);
+        if (delayMs > 0)
+            builder.setMinimumLatency(delayMs);
+        scheduler.schedule(builder.build());
+    }
+
+    // Same limits as thermal control uses, see ThermalController
+    private ThermalController.Config getConfig() {
+        return ThermalController.Config.forTarget(ThermalGovernor.getTarget());
+    }
+
+    // Below target temperature, unknown counts as cool
+    private boolean isCool() {
+        ThermalController.Config config = getConfig();
+        ThermalSensors.Sample sample = sensors.read();
+        return !(sample.socTemp >= config.high) &&
+                !(sample.batteryTemp > config.batteryMax - ThermalController.BATTERY_TEMP_HYSTERESIS);
+    }
+
+    // Too hot to go on
+    private boolean isHot() {
+        ThermalController.Config config = getConfig();
+        ThermalSensors.Sample sample = sensors.read();
+        return sample.socTemp >= config.critical || sample.batteryTemp > config.batteryMax;
+    }
+}
@@ -0,0 +1,22 @@
+package com.talybin.aircat;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+
+// Started by JobScheduler when the device is charging and idle, see
+// RunWindow. Runs until the window closes, hashcat service keeps the
+// process alive if the system stops the job earlier.
+public class RunWindowJob extends JobService {
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        RunWindow.getInstance().onJobStarted(this, params);
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        RunWindow.getInstance().onJobStopped();
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.talybin.aircat.core.Salts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Chooses which group of queued jobs (jobs sharing a word list) to run
+// next. Groups are ordered by:
+//
+//  1. user priority (highest of the group),
+//  2. groups that have not used up their time budget first,
+//  3. expected time per job, shortest first.
+//
+// Expected time is the number of words left multiplied by the number of
+// distinct ssids (each one is a separate salt for hashcat) divided by the
+// measured speed. Dividing it by the number of jobs makes a small list
+// shared by many jobs go before a huge list with a single job, which gives
+// more cracks per hour. Ties keep the queue order.
+// Used on UI thread only.
+class Scheduler {
+
+    // A set of jobs to be processed by one hashcat run
+    static class Group {
+        final Uri uri;
+        final List<Job> jobs = new ArrayList<>();
+
+        int priority = Job.PRIORITY_LOW;
+
+        // Position all jobs have reached
+        long skip = Long.MAX_VALUE;
+
+        // Expected run time in seconds, null if size of word list is unknown
+        Double expectedSeconds = null;
+
+        // Used up its time budget at least once
+        boolean overBudget = false;
+
+        Group(Uri uri) {
+            this.uri = uri;
+        }
+
+        // Expected seconds per job
+        double getCost() {
+            return expectedSeconds != null ? expectedSeconds / jobs.size() : Double.MAX_VALUE;
+        }
+
+        int getNrSalts() {
+            return Salts.count(jobs);
+        }
+    }
+
+    // Used if speed has never been measured, only ordering of groups
+    // depends on it then
+    private static final long DEFAULT_SPEED = 1000;
+
+    // Hashes per second per salt
+    private volatile long speed;
+
+    // Time spent on groups that are over budget, milliseconds.
+    // Groups spent less are preferred among them.
+    private final Map<Uri, Long> spent = new HashMap<>();
+
+    Scheduler() {
+        speed = App.settings().getLong("measured_speed", 0);
+
+        // Not measured on this install yet, try the last recorded session
+        if (speed == 0) {
+            AppDatabase.databaseExecutor.execute(() -> {
+                long last = AppDatabase.getDatabase(App.getContext()).runHistoryDao().getLastSpeedPerSalt();
+                if (speed == 0)
+                    speed = last;
+            });
+        }
+    }
+
+    // Time a group may run while other groups are waiting,
+    // 0 if not limited
+    long getTimeBudgetMs() {
+        try {
+            String minutes = App.settings().getString("group_time_budget", "0");
+            return Math.max(0, Long.parseLong(minutes)) * 60_000;
+        }
+        catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Remember speed of running group, used for following estimates
+    void setSpeed(long hashesPerSecond, int nrSalts) {
+        if (hashesPerSecond <= 0 || nrSalts <= 0)
+            return;
+
+        long perSalt = hashesPerSecond / nrSalts;
+        if (perSalt != speed) {
+            speed = perSalt;
+            App.settings().edit().putLong("measured_speed", speed).apply();
+        }
+    }
+
+    // Group has used its budget and goes back to queue
+    void yielded(Uri uri, long elapsedMs) {
+        spent.merge(uri, elapsedMs, Long::sum);
+    }
+
+    // Group has been processed or removed from queue
+    void finished(Uri uri) {
+        spent.remove(uri);
+    }
+
+    // Return group to run next, null if queue is empty
+    @Nullable
+    Group next(List<Job> queue, Function<Uri, WordList> wordLists) {
+        List<Group> groups = group(queue, wordLists);
+        if (groups.isEmpty())
+            return null;
+
+        // Stable, ties keep queue order
+        groups.sort(Comparator
+                .comparingInt((Group g) -> -g.priority)
+                .thenComparing(g -> g.overBudget)
+                .thenComparingLong(g -> spent.getOrDefault(g.uri, 0L))
+                .thenComparingDouble(Group::getCost));
+
+        Group next = groups.get(0);
+        Log.d("Scheduler", String.format("next: %s, jobs: %d, priority: %d, expected: %s s",
+                next.uri, next.jobs.size(), next.priority, next.expectedSeconds));
+        return next;
+    }
+
+    // Split queue to groups in order of first appearance
+    @NonNull
+    private List<Group> group(List<Job> queue, Function<Uri, WordList> wordLists) {
+        Map<Uri, Group> groups = new LinkedHashMap<>();
+        // Positions saved with another filter start over
+        String feedKey = HashCat.getFeedKey();
+        for (Job job : queue) {
+            Group group = groups.computeIfAbsent(job.getUri(), Group::new);
+            group.jobs.add(job);
+            group.priority = Math.max(group.priority, job.getPriority());
+            group.skip = Math.min(group.skip, job.getResumeOffset(feedKey));
+        }
+
+        for (Group group : groups.values()) {
+            group.overBudget = spent.containsKey(group.uri);
+
+            WordList wordList = wordLists.apply(group.uri);
+            Long words = wordList.getNrWords();
+            if (words == null)
+                words = wordList.getEstimatedWords();
+            if (words != null) {
+                long left = Math.max(0, words - group.skip);
+                group.expectedSeconds = (double)left * group.getNrSalts() /
+                        (speed > 0 ? speed : DEFAULT_SPEED);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
@@ -3,11 +3,17 @@ package com.talybin.aircat;
 import android.os.Bundle;
 import android.text.InputType;
 
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.preference.EditTextPreference;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 
+import com.talybin.aircat.core.TuningProfile;
+
 public class SettingsActivity extends AppCompatActivity {
 
     @Override
@@ -24,7 +30,11 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
-    public static class SettingsFragment extends PreferenceFragmentCompat {
+    public static class SettingsFragment extends PreferenceFragmentCompat
+            implements Autotune.Listener
+    {
+        private Preference autotune = null;
+
         @Override
         public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
             setPreferencesFromResource(R.xml.root_preferences, rootKey);
@@ -32,6 +42,63 @@ public class SettingsActivity extends AppCompatActivity {
             EditTextPreference hri = findPreference("hashcat_refresh_interval");
             if (hri != null)
                 hri.setOnBindEditTextListener((editText -> editText.setInputType(InputType.TYPE_CLASS_NUMBER)));
+
+            EditTextPreference wcs = findPreference("wordlist_cache_size");
+            if (wcs != null)
+                wcs.setOnBindEditTextListener((editText -> editText.setInputType(InputType.TYPE_CLASS_NUMBER)));
+
+            EditTextPreference gtb = findPreference("group_time_budget");
+            if (gtb != null)
+                gtb.setOnBindEditTextListener((editText -> editText.setInputType(InputType.TYPE_CLASS_NUMBER)));
+
+            EditTextPreference sw = findPreference("shard_workers");
+            if (sw != null)
+                sw.setOnBindEditTextListener((editText -> editText.setInputType(InputType.TYPE_CLASS_NUMBER)));
+
+            autotune = findPreference("autotune");
+            if (autotune != null) {
+                autotune.setOnPreferenceClickListener(preference -> {
+                    Autotune tune = Autotune.getInstance();
+                    if (tune.isRunning())
+                        tune.cancel();
+                    else if (!tune.start())
+                        Toast.makeText(getContext(), R.string.autotune_busy, Toast.LENGTH_SHORT).show();
+                    return true;
+                });
+                showProfile();
+            }
+        }
+
+        @Override
+        public void onResume() {
+            super.onResume();
+            Autotune.getInstance().setListener(this);
+        }
+
+        @Override
+        public void onPause() {
+            Autotune.getInstance().setListener(null);
+            super.onPause();
+        }
+
+        @Override
+        public void onProgress(int done, int total, TuningProfile tested) {
+            if (autotune != null)
+                autotune.setSummary(getString(R.string.autotune_progress, done, total, tested));
+        }
+
+        @Override
+        public void onDone(@Nullable TuningProfile profile) {
+            if (profile == null)
+                Toast.makeText(getContext(), R.string.autotune_failed, Toast.LENGTH_SHORT).show();
+            showProfile();
+        }
+
+        private void showProfile() {
+            TuningProfile profile = Autotune.getStoredProfile();
+            autotune.setSummary(profile != null ?
+                    getString(R.string.autotune_summary_profile, profile) :
+                    getString(R.string.autotune_summary_none));
         }
     }
 }
\ No newline at end of file
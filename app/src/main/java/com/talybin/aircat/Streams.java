@@ -1,44 +1,113 @@
 package com.talybin.aircat;
 
+import android.database.Cursor;
 import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import android.util.Log;
 
-import java.io.BufferedInputStream;
+import androidx.annotation.Nullable;
+
+import com.talybin.aircat.core.ByteSource;
+import com.talybin.aircat.core.Compression;
+
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
+// Uri binding of word list reading in core Compression
 class Streams {
 
+    // Content of Uri, read thru ContentResolver
+    static class UriByteSource implements ByteSource {
+        private final Uri uri;
+
+        UriByteSource(Uri uri) {
+            this.uri = uri;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return openUriStream(uri);
+        }
+
+        // Return null if uri cannot be opened as a file
+        @Nullable
+        @Override
+        public FileChannel openFileChannel() {
+            try {
+                ParcelFileDescriptor pfd = App.getInstance()
+                        .getContentResolver().openFileDescriptor(uri, "r");
+                if (pfd == null)
+                    return null;
+
+                FileInputStream fis = new ParcelFileDescriptor.AutoCloseInputStream(pfd);
+                return fis.getChannel();
+            }
+            catch (Exception ignored) {
+                return null;
+            }
+        }
+
+        @Override
+        public long size() {
+            return stat(uri)[0];
+        }
+    }
+
     // Open InputStream from Uri supporting following types:
     // gzip, zip, plain.
     static InputStream openInputStream(Uri uri) throws IOException {
-        InputStream is = openUriStream(uri);
+        return Compression.openInputStream(new UriByteSource(uri));
+    }
+
+    // Open channel from Uri. Plain files are read directly thru FileChannel,
+    // compressed ones or those not backed by a file are decompressed as
+    // in openInputStream.
+    static ReadableByteChannel openChannel(Uri uri) throws IOException {
+        return Compression.openChannel(new UriByteSource(uri));
+    }
 
-        if (!is.markSupported())
-            is = new BufferedInputStream(is);
+    // Estimate number of words in word list by counting lines in
+    // the beginning of it. Return null if source size is unknown.
+    @Nullable
+    static Long estimateWords(Uri uri) throws IOException {
+        return Compression.estimateWords(new UriByteSource(uri));
+    }
 
-        is.mark(1024);
+    // Size and modification time of the source, zeroes if unknown
+    static long[] stat(Uri uri) {
+        long[] ret = { 0, 0 };
 
-        // Check if Gz
-        try {
-            return new GZIPInputStream(is);
-        }
-        catch (IOException ignored) {
-            is.reset();
+        if ("file".equals(uri.getScheme())) {
+            File file = new File(uri.getPath());
+            ret[0] = file.length();
+            ret[1] = file.lastModified();
+            return ret;
         }
-        // Check if zip
-        try {
-            ZipInputStream zis = new ZipInputStream(is);
-            if (zis.getNextEntry() != null)
-                return zis;
+
+        try (Cursor cursor = App.getInstance().getContentResolver()
+                .query(uri, null, null, null, null))
+        {
+            if (cursor != null && cursor.moveToFirst()) {
+                int idx = cursor.getColumnIndex(OpenableColumns.SIZE);
+                if (idx >= 0 && !cursor.isNull(idx))
+                    ret[0] = cursor.getLong(idx);
+
+                idx = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+                if (idx >= 0 && !cursor.isNull(idx))
+                    ret[1] = cursor.getLong(idx);
+            }
         }
-        catch (IOException ignored) {
-            is.reset();
+        catch (Exception e) {
+            Log.w("Streams", "stat: " + e.getMessage());
         }
-        // Assume it is a plain text
-        return is;
+        return ret;
     }
 
     // Open InputStream from Uri
@@ -0,0 +1,209 @@
+package com.talybin.aircat;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.talybin.aircat.core.Metrics;
+import com.talybin.aircat.core.SchedControl;
+import com.talybin.aircat.core.ThermalController;
+import com.talybin.aircat.core.ThermalSensors;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+// Thermal and battery aware throttling of a running group, see
+// ThermalController. Hashcat cannot change its workload while running,
+// so a new level restarts the group from its position, while a pause
+// stops hashcat processes with SIGSTOP until resumed with SIGCONT.
+class ThermalGovernor {
+
+    // Name of hashcat processes as seen in /proc
+    private static final String PROCESS_NAME = "hashcat";
+
+    // Same numbers on all Android architectures
+    private static final int SIGCONT = 18;
+    private static final int SIGSTOP = 19;
+
+    // Interval between sensor readings
+    private static final long TICK_MS = 10_000;
+
+    // Interval between readings during a battery pause. The device may
+    // sleep then and handler ticks stop with it, an alarm wakes it up.
+    private static final long BATTERY_PAUSE_TICK_MS = 60_000;
+
+    private final Handler handler;
+    private final ExecutorService executor;
+    private final Runnable onLevelChanged;
+
+    private final ThermalSensors sensors = new ThermalSensors(new File("/"));
+    private final Metrics metrics = Metrics.get();
+
+    // Created on first group with control enabled, kept across groups
+    // so speeds per level accumulate. Recreated on target change.
+    private volatile ThermalController controller = null;
+    private double target = Double.NaN;
+
+    // Level current run started at, used in UI thread only
+    private int runLevel = 0;
+    private boolean running = false;
+
+    // Hashcat processes are stopped
+    private volatile boolean paused = false;
+
+    private final Runnable tick = this::tick;
+
+    private final AlarmManager.OnAlarmListener batteryPauseTick = () -> {
+        if (!running)
+            return;
+        // Device stays awake until the reading is applied
+        HashCatService.enableWakeLock(true);
+        handler.removeCallbacks(tick);
+        tick();
+    };
+
+    // Listener is called on UI thread when the running group should be
+    // restarted at a new level
+    ThermalGovernor(Handler handler, ExecutorService executor, Runnable onLevelChanged) {
+        this.handler = handler;
+        this.executor = executor;
+        this.onLevelChanged = onLevelChanged;
+    }
+
+    // Group starts with given workload, return workload to run at.
+    // Call from UI thread.
+    int start(int workload) {
+        handler.removeCallbacks(tick);
+        if (!App.settings().getBoolean("thermal_control", false)) {
+            running = false;
+            return workload;
+        }
+
+        double newTarget = getTarget();
+        if (controller == null || newTarget != target) {
+            target = newTarget;
+            controller = new ThermalController(ThermalController.Config.forTarget(target),
+                    workload, SystemClock.elapsedRealtime());
+        }
+        controller.setMaxLevel(workload);
+
+        // Still paused from last run, first tick decides
+        runLevel = Math.max(1, controller.getLevel());
+        running = true;
+        handler.postDelayed(tick, TICK_MS);
+        return runLevel;
+    }
+
+    // Target SoC temperature from settings, Celsius
+    static double getTarget() {
+        try {
+            return Double.parseDouble(App.settings().getString("thermal_target", "45"));
+        }
+        catch (NumberFormatException e) {
+            return 45;
+        }
+    }
+
+    // Group finished, call from UI thread
+    void stop() {
+        handler.removeCallbacks(tick);
+        getAlarmManager().cancel(batteryPauseTick);
+        running = false;
+    }
+
+    // Processes are about to be destroyed, stopped ones would not exit
+    void release() {
+        if (paused) {
+            signal(SIGCONT);
+            paused = false;
+        }
+    }
+
+    // Combined speed of running group
+    void recordSpeed(long speed) {
+        ThermalController c = controller;
+        if (c != null && !paused)
+            c.recordSpeed(speed);
+    }
+
+    // Time and speed per level, empty if never enabled
+    String toText() {
+        ThermalController c = controller;
+        return c != null ? c.toText() : "";
+    }
+
+    private void tick() {
+        ThermalController c = controller;
+        executor.execute(() -> {
+            ThermalSensors.Sample sample = sensors.read();
+            int prev = c.getLevel();
+            int level = c.update(sample, SystemClock.elapsedRealtime());
+
+            metrics.gauge("thermal.level").set(level);
+            metrics.gauge("thermal.soc_temp_c").set(sample.socTemp);
+            metrics.gauge("thermal.battery_temp_c").set(sample.batteryTemp);
+            metrics.gauge("thermal.battery_current_ma").set(sample.batteryCurrent / 1000);
+
+            if (level != prev) {
+                Log.i("ThermalGovernor", String.format(Locale.ROOT,
+                        "level %d -> %d (%s), mean %d H/s at %d",
+                        prev, level, sample, c.getMeanSpeed(prev), prev));
+                metrics.gauge("thermal.w" + prev + ".speed").set(c.getMeanSpeed(prev));
+            }
+
+            handler.post(() -> {
+                if (!running)
+                    return;
+                apply(level, c.isBatteryPause());
+                handler.postDelayed(tick, TICK_MS);
+            });
+        });
+    }
+
+    private void apply(int level, boolean batteryPause) {
+        if (level == ThermalController.PAUSED) {
+            if (!paused) {
+                signal(SIGSTOP);
+                paused = true;
+                metrics.counter("thermal.pauses").inc();
+            }
+            // Only charging helps, let the device sleep meanwhile. Plugging
+            // in ends doze, so the alarm is not deferred then.
+            if (batteryPause) {
+                HashCatService.enableWakeLock(false);
+                getAlarmManager().setExact(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                        SystemClock.elapsedRealtime() + BATTERY_PAUSE_TICK_MS,
+                        "ThermalGovernor", batteryPauseTick, handler);
+            }
+            else
+                HashCatService.restoreWakeLock();
+            return;
+        }
+
+        getAlarmManager().cancel(batteryPauseTick);
+        if (paused) {
+            signal(SIGCONT);
+            paused = false;
+            HashCatService.restoreWakeLock();
+        }
+        if (level != runLevel) {
+            metrics.counter("thermal.restarts").inc();
+            onLevelChanged.run();
+        }
+    }
+
+    private static AlarmManager getAlarmManager() {
+        return (AlarmManager)App.getContext().getSystemService(Context.ALARM_SERVICE);
+    }
+
+    private static void signal(int signal) {
+        List<Integer> pids = SchedControl.findChildren(new File("/proc"),
+                android.os.Process.myPid(), PROCESS_NAME);
+        for (int pid : pids)
+            android.os.Process.sendSignal(pid, signal);
+    }
+}
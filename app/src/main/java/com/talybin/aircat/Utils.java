@@ -122,17 +122,4 @@ class Utils {
                 try { obj.close(); } catch (IOException ignored) {}
         }
     }
-
-    // Convert string to series of ascii bytes in hex format
-    static String toHexSequence(String src) {
-        StringBuilder buffer = new StringBuilder();
-        char[] digits = new char[2];
-
-        for (byte value : src.getBytes()) {
-            digits[0] = Character.forDigit((value >> 4) & 0xf, 16);
-            digits[1] = Character.forDigit(value & 0xf, 16);
-            buffer.append(digits);
-        }
-        return buffer.toString();
-    }
 }
@@ -13,6 +13,7 @@ import androidx.room.TypeConverters;
 
 import java.io.File;
 import java.util.Date;
+import java.util.Objects;
 
 @Entity(tableName = "wordlist_table")
 public class WordList {
@@ -32,6 +33,11 @@ public class WordList {
     @TypeConverters(DateConverter.class)
     private Date lastUsed;
 
+    // Shown until exact number of words is known
+    @Ignore
+    @Nullable
+    private volatile Long estimatedWords = null;
+
     @Ignore
     WordList(@NonNull Uri uri) {
         this(uri, null, new Date());
@@ -55,6 +61,15 @@ public class WordList {
         return nrWords;
     }
 
+    @Nullable
+    Long getEstimatedWords() {
+        return estimatedWords;
+    }
+
+    void setEstimatedWords(@Nullable Long estimatedWords) {
+        this.estimatedWords = estimatedWords;
+    }
+
     @NonNull
     Date getLastUsed() {
         return lastUsed;
@@ -70,6 +85,16 @@ public class WordList {
         writeChanges();
     }
 
+    // Fill in what is not known yet from the stored row of the same list,
+    // return true if this differs from it
+    boolean merge(WordList stored) {
+        if (nrWords == null)
+            nrWords = stored.nrWords;
+        if (stored.lastUsed.after(lastUsed))
+            lastUsed = stored.lastUsed;
+        return !Objects.equals(nrWords, stored.nrWords) || !lastUsed.equals(stored.lastUsed);
+    }
+
     static String getFilePath(Uri uri) {
         String ret = Uri.decode(uri.toString());
         return ret.substring(ret.lastIndexOf("//") + 1);
@@ -0,0 +1,107 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+
+import java.util.Date;
+
+// Decompressed and filtered copy of a word list stored in app storage
+@Entity(tableName = "wordlist_cache_table")
+public class WordListCache {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "uri")
+    @TypeConverters(UriConverter.class)
+    private Uri uri;
+
+    // Size and modification time of the source at the moment it was
+    // cached. Cached copy is stale if any of them differs.
+    @ColumnInfo(name = "source_size")
+    private long sourceSize;
+
+    @ColumnInfo(name = "source_modified")
+    private long sourceModified;
+
+    // Absolute path of cached copy
+    @ColumnInfo(name = "path")
+    @NonNull
+    private String path;
+
+    // Size of cached copy in bytes
+    @ColumnInfo(name = "size")
+    private long size;
+
+    // Number of words in cached copy
+    @ColumnInfo(name = "nr_words")
+    private long nrWords;
+
+    @ColumnInfo(name = "last_used")
+    @NonNull
+    @TypeConverters(DateConverter.class)
+    private Date lastUsed;
+
+    // Filter the copy was made with, see CandidateFilter.CONFIG
+    @ColumnInfo(name = "filter_config", defaultValue = "''")
+    @NonNull
+    private String filterConfig;
+
+    WordListCache(@NonNull Uri uri, long sourceSize, long sourceModified,
+                  @NonNull String path, long size, long nrWords, @NonNull Date lastUsed,
+                  @NonNull String filterConfig)
+    {
+        this.uri = uri;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.path = path;
+        this.size = size;
+        this.nrWords = nrWords;
+        this.lastUsed = lastUsed;
+        this.filterConfig = filterConfig;
+    }
+
+    @NonNull
+    Uri getUri() {
+        return uri;
+    }
+
+    long getSourceSize() {
+        return sourceSize;
+    }
+
+    long getSourceModified() {
+        return sourceModified;
+    }
+
+    @NonNull
+    String getPath() {
+        return path;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getNrWords() {
+        return nrWords;
+    }
+
+    @NonNull
+    Date getLastUsed() {
+        return lastUsed;
+    }
+
+    void setLastUsed() {
+        lastUsed = new Date();
+    }
+
+    @NonNull
+    String getFilterConfig() {
+        return filterConfig;
+    }
+}
@@ -0,0 +1,35 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.TypeConverters;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface WordListCacheDao {
+
+    // Replace stale entry of the same word list
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(WordListCache entry);
+
+    @Delete
+    void delete(WordListCache entry);
+
+    @Update
+    void update(WordListCache entry);
+
+    // Most recently used first
+    @Query("SELECT * FROM wordlist_cache_table ORDER BY last_used DESC")
+    List<WordListCache> getAll();
+
+    @TypeConverters(UriConverter.class)
+    @Query("SELECT * FROM wordlist_cache_table WHERE uri = :uri")
+    WordListCache get(Uri uri);
+}
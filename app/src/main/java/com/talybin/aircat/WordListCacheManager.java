@@ -0,0 +1,251 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.talybin.aircat.core.CandidateFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// Keeps decompressed and filtered copies of word lists in app storage,
+// so repeated runs read a local plain file instead of decompressing the
+// source again. Least recently used copies are removed when the total
+// size exceeds the budget set in preferences.
+// All methods, except isEnabled, do disk and database I/O and should
+// not be called from UI thread.
+class WordListCacheManager {
+
+    private static WordListCacheManager instance = null;
+
+    static WordListCacheManager getInstance() {
+        if (instance == null) {
+            synchronized (WordListCacheManager.class) {
+                if (instance == null)
+                    instance = new WordListCacheManager();
+            }
+        }
+        return instance;
+    }
+
+    // Default budget in megabytes
+    private static final String DEFAULT_BUDGET = "1024";
+
+    private WordListCacheDao cacheDao;
+    private File cacheDir;
+
+    // Files created after this moment are not orphans
+    private long createdAt;
+
+    private WordListCacheManager() {
+        cacheDao = AppDatabase.getDatabase(App.getContext()).wordListCacheDao();
+        cacheDir = new File(App.getContext().getFilesDir(), "wordlists");
+        createdAt = System.currentTimeMillis();
+
+        AppDatabase.databaseExecutor.execute(this::removeOrphans);
+    }
+
+    // Budget in bytes, 0 if caching is disabled
+    long getBudget() {
+        try {
+            String mb = App.settings().getString("wordlist_cache_size", DEFAULT_BUDGET);
+            return Math.max(0, Long.parseLong(mb)) * 1024 * 1024;
+        }
+        catch (NumberFormatException e) {
+            return Long.parseLong(DEFAULT_BUDGET) * 1024 * 1024;
+        }
+    }
+
+    boolean isEnabled() {
+        return getBudget() > 0;
+    }
+
+    // Return cached copy of word list if it is up to date with the source
+    @Nullable
+    WordListCache get(Uri uri) {
+        WordListCache entry = cacheDao.get(uri);
+        if (entry == null)
+            return null;
+
+        long[] info = Streams.stat(uri);
+        if (info[0] != entry.getSourceSize() || info[1] != entry.getSourceModified() ||
+                !CandidateFilter.CONFIG.equals(entry.getFilterConfig()) ||
+                !new File(entry.getPath()).isFile())
+        {
+            remove(entry);
+            return null;
+        }
+
+        entry.setLastUsed();
+        cacheDao.update(entry);
+        return entry;
+    }
+
+    // Wrap filtered source of word list so that everything read from
+    // it is written to the cache as well. The copy is stored when whole
+    // source has been read, otherwise discarded on close.
+    // Return the source unchanged if it cannot be cached.
+    @NonNull
+    ReadableByteChannel cacheWhileReading(WordList wordList, CandidateFilter src) {
+        if (!isEnabled())
+            return src;
+
+        long[] info = Streams.stat(wordList.getUri());
+        // Without size there is nothing to validate the copy against
+        if (info[0] <= 0)
+            return src;
+
+        try {
+            return new CacheWriter(wordList, src, info[0], info[1]);
+        }
+        catch (IOException e) {
+            Log.w("WordListCacheManager", "cache disabled: " + e.getMessage());
+            return src;
+        }
+    }
+
+    private void remove(WordListCache entry) {
+        new File(entry.getPath()).delete();
+        cacheDao.delete(entry);
+    }
+
+    // Remove least recently used copies until total size fits the budget
+    private void evict() {
+        long budget = getBudget();
+        long total = 0;
+
+        for (WordListCache entry : cacheDao.getAll()) {
+            total += entry.getSize();
+            if (total > budget) {
+                Log.d("WordListCacheManager", "evict " + entry.getUri());
+                remove(entry);
+            }
+        }
+    }
+
+    // Remove files without database entry and entries without file,
+    // left by process kill or cleared storage
+    private void removeOrphans() {
+        Set<String> known = new HashSet<>();
+        for (WordListCache entry : cacheDao.getAll()) {
+            if (new File(entry.getPath()).isFile())
+                known.add(entry.getPath());
+            else
+                cacheDao.delete(entry);
+        }
+
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!known.contains(file.getPath()) && file.lastModified() < createdAt)
+                    file.delete();
+            }
+        }
+    }
+
+    private class CacheWriter implements ReadableByteChannel {
+
+        private final WordList wordList;
+        private final CandidateFilter src;
+        private final long sourceSize;
+        private final long sourceModified;
+
+        private final File file;
+        private FileChannel out;
+
+        CacheWriter(WordList wordList, CandidateFilter src,
+                    long sourceSize, long sourceModified) throws IOException
+        {
+            this.wordList = wordList;
+            this.src = src;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs())
+                throw new IOException("cannot create " + cacheDir);
+
+            file = new File(cacheDir, UUID.randomUUID() + ".txt");
+            out = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int start = dst.position();
+            int cnt = src.read(dst);
+
+            if (out != null) {
+                if (cnt > 0) {
+                    ByteBuffer data = dst.duplicate();
+                    data.limit(dst.position()).position(start);
+                    try {
+                        while (data.hasRemaining())
+                            out.write(data);
+                    }
+                    catch (IOException e) {
+                        // Out of space or alike, feeding hashcat is
+                        // more important than caching
+                        Log.w("WordListCacheManager", "write: " + e.getMessage());
+                        discard();
+                    }
+                }
+                else if (cnt < 0)
+                    store();
+            }
+            return cnt;
+        }
+
+        private void store() {
+            try {
+                out.close();
+                out = null;
+
+                WordListCache entry = new WordListCache(
+                        wordList.getUri(), sourceSize, sourceModified, file.getPath(),
+                        file.length(), src.getAccepted(), new Date(), CandidateFilter.CONFIG);
+
+                // Replaced entry leaves its file behind otherwise. Deleted
+                // after the new entry is in, a reader may still have it open.
+                WordListCache old = cacheDao.get(entry.getUri());
+                cacheDao.insert(entry);
+                if (old != null && !old.getPath().equals(entry.getPath()))
+                    new File(old.getPath()).delete();
+                evict();
+            }
+            catch (Exception e) {
+                Log.w("WordListCacheManager", "store: " + e.getMessage());
+                discard();
+            }
+        }
+
+        private void discard() {
+            Utils.silentClose(out);
+            out = null;
+            file.delete();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return src.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Not read to the end
+            if (out != null)
+                discard();
+            src.close();
+        }
+    }
+}
@@ -19,12 +19,18 @@ public interface WordListDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     void insert(WordList wordList);
 
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insert(List<WordList> wordLists);
+
     @Query("DELETE FROM wordlist_table")
     void deleteAll();
 
     @Update
     void update(WordList wordList);
 
+    @Update
+    void update(List<WordList> wordLists);
+
     @Query("SELECT * FROM wordlist_table")
     List<WordList> getWordLists();
 
@@ -5,8 +5,11 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.ArrayList;
+import com.talybin.aircat.core.Registry;
+
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 class WordListManager {
 
@@ -24,53 +27,65 @@ class WordListManager {
 
     private WordListDao wordListDao;
 
-    private List<WordList> wordLists = new ArrayList<>();
+    // Word lists by uri, safe to use from any thread
+    private final Registry<Uri, WordList> wordLists = new Registry<>(WordList::getUri);
 
     private WordListManager() {
         wordListDao = AppDatabase.getDatabase(App.getContext()).wordListDao();
 
         //AppDatabase.databaseExecutor.execute(wordListDao::deleteAll);
 
-        AppDatabase.databaseExecutor.execute(() -> {
-            wordLists = wordListDao.getWordLists();
-        });
+        AppDatabase.databaseExecutor.execute(this::load);
+    }
+
+    // Word lists created meanwhile are kept, with what the stored
+    // rows know about them (e.g. number of words)
+    private void load() {
+        List<WordList> stored = wordListDao.getWordLists();
+        List<WordList> added = wordLists.addAll(stored);
+        if (added.size() == stored.size())
+            return;
+
+        Set<Uri> addedUris = new HashSet<>();
+        for (WordList wordList : added)
+            addedUris.add(wordList.getUri());
+        for (WordList row : stored) {
+            WordList wordList = addedUris.contains(row.getUri()) ? null : get(row.getUri());
+            if (wordList != null && wordList.merge(row))
+                update(wordList);
+        }
     }
 
+    // Snapshot, does not change
     List<WordList> getAll() {
-        return wordLists;
+        return wordLists.getAll();
     }
 
     @Nullable
     WordList get(Uri uri) {
-        for (WordList wl : wordLists) {
-            if (wl.getUri().equals(uri))
-                return wl;
-        }
-        return null;
+        return wordLists.get(uri);
     }
 
     @NonNull
     WordList getOrCreate(Uri uri) {
         WordList wordList = get(uri);
-        if (wordList == null)
-            noCheckAdd(wordList = new WordList(uri));
+        if (wordList == null) {
+            wordList = new WordList(uri);
+            if (!add(wordList))
+                wordList = get(uri);
+        }
         return wordList;
     }
 
     void update(WordList wordList) {
-        AppDatabase.databaseExecutor.execute(() -> wordListDao.update(wordList));
+        WriteBehind.getInstance().update(wordList);
     }
 
     boolean add(WordList wordList) {
-        if (get(wordList.getUri()) != null)
+        if (!wordLists.add(wordList))
             return false;
 
-        noCheckAdd(wordList);
+        WriteBehind.getInstance().insert(wordList);
         return true;
     }
-
-    private void noCheckAdd(WordList wordList) {
-        wordLists.add(wordList);
-        AppDatabase.databaseExecutor.execute(() -> wordListDao.insert(wordList));
-    }
 }
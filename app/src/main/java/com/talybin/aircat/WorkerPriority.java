@@ -0,0 +1,91 @@
+package com.talybin.aircat;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.talybin.aircat.core.CpuTopology;
+import com.talybin.aircat.core.SchedControl;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+// Cores and scheduling of hashcat workers. Workers run nicer (or in idle
+// class) while the app is in the foreground, so the UI stays smooth, and
+// at full priority otherwise. Policy is applied thru su to all threads
+// of running workers, on start and on each foreground change.
+class WorkerPriority {
+
+    // Name of hashcat processes as seen in /proc
+    private static final String PROCESS_NAME = "hashcat";
+
+    private final ExecutorService executor;
+    private final CpuTopology topology;
+
+    private volatile boolean foreground = false;
+
+    WorkerPriority(ExecutorService executor, CpuTopology topology) {
+        this.executor = executor;
+        this.topology = topology;
+    }
+
+    // MainActivity started or stopped
+    void setForeground(boolean foreground) {
+        if (this.foreground != foreground) {
+            this.foreground = foreground;
+            apply();
+        }
+    }
+
+    // Cores workers not split by sharding run on, empty for any
+    List<Integer> getCpus() {
+        String cpus = App.settings().getString("worker_cpus", "all");
+        List<CpuTopology.Cluster> clusters = topology.clusters;
+        // Pinning makes sense only with clusters to choose from
+        if (clusters.size() < 2)
+            return Collections.emptyList();
+        if ("big".equals(cpus))
+            return clusters.get(clusters.size() - 1).cpus;
+        if ("little".equals(cpus))
+            return clusters.get(0).cpus;
+        return Collections.emptyList();
+    }
+
+    SchedControl.Policy getPolicy() {
+        SharedPreferences prefs = App.settings();
+        String nice = foreground ?
+                prefs.getString("sched_foreground", "10") :
+                prefs.getString("sched_background", "0");
+        return SchedControl.Policy.parse(nice, !"all".equals(prefs.getString("worker_cpus", "all")) ||
+                !"1".equals(prefs.getString("shard_workers", "1")));
+    }
+
+    // Apply current policy to running workers in background
+    void apply() {
+        SchedControl.Policy policy = getPolicy();
+        executor.execute(() -> {
+            List<Integer> pids = SchedControl.findChildren(new File("/proc"),
+                    android.os.Process.myPid(), PROCESS_NAME);
+            if (pids.isEmpty())
+                return;
+
+            Log.d("WorkerPriority", pids + ": " + policy);
+            try {
+                Process su = Runtime.getRuntime().exec("su");
+                try (OutputStream os = su.getOutputStream()) {
+                    os.write(SchedControl.script(pids, policy).getBytes(StandardCharsets.US_ASCII));
+                    os.write("exit\n".getBytes(StandardCharsets.US_ASCII));
+                }
+                int ret = su.waitFor();
+                if (ret != 0)
+                    Log.w("WorkerPriority", "su exit code " + ret);
+            }
+            catch (Exception e) {
+                Log.w("WorkerPriority", "apply: " + e.getMessage());
+            }
+        });
+    }
+}
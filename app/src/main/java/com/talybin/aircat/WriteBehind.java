@@ -0,0 +1,174 @@
+package com.talybin.aircat;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.talybin.aircat.core.Metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Collects job and word list changes and writes them in one transaction
+// per interval or batch, instead of a transaction (and fsync) per change.
+// Changes of the same row are coalesced by primary key, the entity is
+// written as it is at flush time.
+class WriteBehind {
+
+    private static WriteBehind instance = null;
+
+    static WriteBehind getInstance() {
+        if (instance == null) {
+            synchronized (WriteBehind.class) {
+                if (instance == null)
+                    instance = new WriteBehind();
+            }
+        }
+        return instance;
+    }
+
+    // Longest time a change waits for the flush
+    private static final long FLUSH_INTERVAL_MS = 2000;
+
+    // Flush without waiting if this many rows are pending
+    private static final int MAX_BATCH = 64;
+
+    // Pending rows by primary key. In a flush deletes go first, then
+    // inserts and updates, so a row removed and added again ends up new.
+    private static class Pending<K, T> {
+        Map<K, T> deleted = new LinkedHashMap<>();
+        Map<K, T> inserted = new LinkedHashMap<>();
+        Map<K, T> updated = new LinkedHashMap<>();
+
+        void insert(K key, T entity) {
+            updated.remove(key);
+            inserted.put(key, entity);
+        }
+
+        void update(K key, T entity) {
+            // Not yet inserted row will be written as it is
+            if (!inserted.containsKey(key))
+                updated.put(key, entity);
+        }
+
+        void delete(K key, T entity) {
+            updated.remove(key);
+            inserted.remove(key);
+            // Deleting a row never written is harmless
+            deleted.put(key, entity);
+        }
+
+        int size() {
+            return deleted.size() + inserted.size() + updated.size();
+        }
+    }
+
+    private final AppDatabase database;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+
+    // Guarded by this
+    private Pending<String, Job> jobs = new Pending<>();
+    private Pending<Uri, WordList> wordLists = new Pending<>();
+    private boolean flushPosted = false;
+
+    // Serializes writes so that batches are committed in order
+    private final Object writeLock = new Object();
+
+    private final Metrics.Counter nrFlushes = Metrics.get().counter("db.flushes");
+    private final Metrics.Histogram flushRows = Metrics.get().histogram("db.flush_rows");
+
+    private WriteBehind() {
+        database = AppDatabase.getDatabase(App.getContext());
+    }
+
+    synchronized void insert(Job job) {
+        jobs.insert(job.getPmkId(), job);
+        changed();
+    }
+
+    synchronized void update(Job job) {
+        jobs.update(job.getPmkId(), job);
+        changed();
+    }
+
+    synchronized void delete(Job job) {
+        jobs.delete(job.getPmkId(), job);
+        changed();
+    }
+
+    synchronized void insert(WordList wordList) {
+        wordLists.insert(wordList.getUri(), wordList);
+        changed();
+    }
+
+    synchronized void update(WordList wordList) {
+        wordLists.update(wordList.getUri(), wordList);
+        changed();
+    }
+
+    // Write pending changes in background now
+    void flush() {
+        synchronized (this) {
+            handler.removeCallbacks(flushTask);
+            flushPosted = false;
+        }
+        AppDatabase.databaseExecutor.execute(this::write);
+    }
+
+    // Write pending changes on calling thread, for use when the process
+    // is about to die and queued tasks may never run
+    void flushNow() {
+        synchronized (this) {
+            handler.removeCallbacks(flushTask);
+            flushPosted = false;
+        }
+        write();
+    }
+
+    private void changed() {
+        if (jobs.size() + wordLists.size() >= MAX_BATCH)
+            flush();
+        else if (!flushPosted) {
+            flushPosted = true;
+            handler.postDelayed(flushTask, FLUSH_INTERVAL_MS);
+        }
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            Pending<String, Job> jobBatch;
+            Pending<Uri, WordList> wordListBatch;
+            synchronized (this) {
+                jobBatch = jobs;
+                wordListBatch = wordLists;
+                jobs = new Pending<>();
+                wordLists = new Pending<>();
+            }
+
+            int rows = jobBatch.size() + wordListBatch.size();
+            if (rows == 0)
+                return;
+
+            try {
+                database.runInTransaction(() -> {
+                    JobDao jobDao = database.jobDao();
+                    jobDao.delete(new ArrayList<>(jobBatch.deleted.values()));
+                    jobDao.insert(new ArrayList<>(jobBatch.inserted.values()));
+                    jobDao.update(new ArrayList<>(jobBatch.updated.values()));
+
+                    WordListDao wordListDao = database.wordListDao();
+                    wordListDao.insert(new ArrayList<>(wordListBatch.inserted.values()));
+                    wordListDao.update(new ArrayList<>(wordListBatch.updated.values()));
+                });
+                nrFlushes.inc();
+                flushRows.record(rows);
+            }
+            catch (Exception e) {
+                Log.e("WriteBehind", "flush of " + rows + " rows failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.Compression;
+import com.talybin.aircat.core.FileByteSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Format sniffing and decompression of a 16 MB word list. Score is
+// whole list reads per second, multiply by 16 for MB/s.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompressionBenchmark {
+
+    private static final int WORD_LIST_SIZE = 16 * 1024 * 1024;
+
+    @Param({ "plain", "gzip", "zip" })
+    public String format;
+
+    private File file;
+    private FileByteSource source;
+
+    private final byte[] buffer = new byte[64 * 1024];
+    private final ByteBuffer directBuffer = ByteBuffer.allocateDirect(256 * 1024);
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = Samples.wordList(WORD_LIST_SIZE);
+        if (format.equals("gzip"))
+            data = Samples.gzip(data);
+        else if (format.equals("zip"))
+            data = Samples.zip(data);
+
+        file = File.createTempFile("wordlist-", "." + format);
+        Files.write(file.toPath(), data);
+        source = new FileByteSource(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    // As used by word count estimate
+    @Benchmark
+    public long openInputStream() throws IOException {
+        long total = 0;
+        try (InputStream is = Compression.openInputStream(source)) {
+            for (int cnt; (cnt = is.read(buffer)) >= 0; )
+                total += cnt;
+        }
+        return total;
+    }
+
+    // As used by feed pipeline
+    @Benchmark
+    public long openChannel() throws IOException {
+        long total = 0;
+        try (ReadableByteChannel channel = Compression.openChannel(source)) {
+            for (int cnt; (cnt = channel.read(directBuffer)) >= 0; ) {
+                total += cnt;
+                directBuffer.clear();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.Eapol;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+// Parsing of a tcpdump hex dump of EAPOL frame
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EapolBenchmark {
+
+    private final byte[] dump = Samples.EAPOL_DUMP.getBytes(StandardCharsets.US_ASCII);
+
+    @Benchmark
+    public Eapol fromStream() {
+        return Eapol.fromStream(new ByteArrayInputStream(dump));
+    }
+}
@@ -0,0 +1,34 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.HashFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Hash line written to hash file for every job on each run
+// (Job.getHash delegates to HashFormat.format)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HashFormatBenchmark {
+
+    private final Samples.Hash hash = Samples.hashes(1).get(0);
+
+    @Benchmark
+    public String format() {
+        return HashFormat.format(hash);
+    }
+
+    @Benchmark
+    public String toHexSequence() {
+        return HashFormat.toHexSequence(hash.getSsid());
+    }
+}
@@ -0,0 +1,64 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.OutputParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+// Parsing of recorded hashcat output, 1000 status lines followed by
+// a password line per job. Job count affects status line length
+// (RECHASH, RECSALT) and the size of the password lookup index.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OutputParserBenchmark {
+
+    private static final int NR_STATUS_LINES = 1000;
+
+    @Param({ "1", "10", "100" })
+    public int nrJobs;
+
+    @Param({ "1", "4" })
+    public int nrDevices;
+
+    private List<Samples.Hash> hashes;
+    private byte[] output;
+
+    @Setup
+    public void setup() {
+        hashes = Samples.hashes(nrJobs);
+        output = Samples.hashcatOutput(hashes, NR_STATUS_LINES, nrDevices);
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) throws IOException {
+        new OutputParser<>(new ByteArrayInputStream(output), hashes,
+                new OutputParser.Listener<Samples.Hash>() {
+                    @Override
+                    public void onStatus(OutputParser.Status status) {
+                        bh.consume(status.progress);
+                        bh.consume(status.speed);
+                    }
+
+                    @Override
+                    public void onPassword(Samples.Hash job, String password) {
+                        bh.consume(password);
+                    }
+                }).run();
+    }
+}
@@ -0,0 +1,156 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.PmkidHash;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Deterministic input data for benchmarks, generated instead of being
+// stored in the repository
+class Samples {
+
+    static class Hash implements PmkidHash {
+        private final String pmkId;
+        private final String ssid;
+        private final String apMac;
+        private final String clientMac;
+
+        Hash(String pmkId, String ssid, String apMac, String clientMac) {
+            this.pmkId = pmkId;
+            this.ssid = ssid;
+            this.apMac = apMac;
+            this.clientMac = clientMac;
+        }
+
+        @Override
+        public String getPmkId() {
+            return pmkId;
+        }
+
+        @Override
+        public String getSsid() {
+            return ssid;
+        }
+
+        @Override
+        public String getApMac() {
+            return apMac;
+        }
+
+        @Override
+        public String getClientMac() {
+            return clientMac;
+        }
+    }
+
+    // Captured by tcpdump -entqx, as read by Eapol.fromStream
+    static final String EAPOL_DUMP =
+            "38:ea:a7:7b:b2:91 > 6c:c7:ec:95:3d:63, EAPOL, length 113: EAPOL key (3) v1, len 95\n" +
+            "\t0x0000:  0203 005f 0201 0a00 0000 0000 0000 0000\n" +
+            "\t0x0010:  0166 03d4 9ecb 2c4b e465 cd40 0010 4870\n" +
+            "\t0x0020:  7f0b 5d3c 2e6a 3b84 9ff2 8a3d 6e41 0c12\n" +
+            "\t0x0030:  9a7d 0000 0000 0000 0000 0000 0000 0000\n" +
+            "\t0x0040:  0000 0000 0000 0000 0000 0000 0000 0000\n" +
+            "\t0x0050:  0000 0000 0000 0000 0000 0000 0000 0000\n" +
+            "\t0x0060:  0000 0016 dd14 000f ac04 5a6b 8f2c 9d3e\n" +
+            "\t0x0070:  1b4f 7a60 c2d8 e915 3f47\n";
+
+    static List<Hash> hashes(int count) {
+        Random random = new Random(count);
+        List<Hash> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            ret.add(new Hash(
+                    hex(random, 16),
+                    "network-" + i,
+                    mac(random),
+                    mac(random)));
+        }
+        return ret;
+    }
+
+    // Machine-readable hashcat output: status lines with one line per
+    // cracked hash at the end
+    static byte[] hashcatOutput(List<Hash> hashes, int nrStatusLines, int nrDevices) {
+        StringBuilder sb = new StringBuilder();
+        long total = 14_344_384L * hashes.size();
+
+        for (int i = 1; i <= nrStatusLines; ++i) {
+            sb.append("STATUS\t3\tSPEED");
+            for (int dev = 0; dev < nrDevices; ++dev)
+                sb.append('\t').append(1200 + dev).append("\t1000.00");
+            sb.append("\tEXEC_RUNTIME");
+            for (int dev = 0; dev < nrDevices; ++dev)
+                sb.append("\t52.13");
+            sb.append(String.format(Locale.ROOT,
+                    "\tCURKU\t%d\tPROGRESS\t%d\t%d\tRECHASH\t0\t%d\tRECSALT\t0\t%d\tREJECTED\t0",
+                    i * 4096L, i * 4096L * hashes.size(), total, hashes.size(), hashes.size()));
+            sb.append("\tUTIL");
+            for (int dev = 0; dev < nrDevices; ++dev)
+                sb.append("\t98");
+            sb.append('\n');
+        }
+
+        for (Hash hash : hashes) {
+            sb.append(hash.getApMac().replace(":", "")).append(':')
+                    .append(hash.getClientMac().replace(":", "")).append(':')
+                    .append(hash.getSsid()).append(":password\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Word list of specified size, words of 4 to 16 characters
+    static byte[] wordList(int size) {
+        Random random = new Random(size);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 32);
+        while (out.size() < size) {
+            int length = 4 + random.nextInt(13);
+            for (int i = 0; i < length; ++i)
+                out.write('a' + random.nextInt(26));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] zip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("wordlist.txt"));
+            zip.write(data);
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    private static String mac(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 6; ++i) {
+            if (i > 0)
+                sb.append(':');
+            sb.append(hex(random, 1));
+        }
+        return sb.toString();
+    }
+
+    private static String hex(Random random, int nrBytes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nrBytes; ++i)
+            sb.append(String.format("%02x", random.nextInt(256)));
+        return sb.toString();
+    }
+}
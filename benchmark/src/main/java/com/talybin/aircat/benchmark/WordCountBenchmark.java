@@ -0,0 +1,79 @@
+package com.talybin.aircat.benchmark;
+
+import com.talybin.aircat.core.BloomFilter;
+import com.talybin.aircat.core.CandidateFilter;
+import com.talybin.aircat.core.WordCounter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+// Newline counting and candidate filtering of 16 MB in-memory word list,
+// read in buffers of feed pipeline size. Score is whole list passes per
+// second, multiply by 16 for MB/s. The duplicate filter is allocated
+// once and cleared outside of the measured time, so the score is the
+// filtering only.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WordCountBenchmark {
+
+    private static final int WORD_LIST_SIZE = 16 * 1024 * 1024;
+
+    private final byte[] data = Samples.wordList(WORD_LIST_SIZE);
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+    private final BloomFilter seen = new BloomFilter(
+            CandidateFilter.DEFAULT_DEDUP_SIZE, CandidateFilter.DEDUP_HASHES);
+
+    // An invocation is a whole list pass, long enough for per
+    // invocation setup
+    @Setup(Level.Invocation)
+    public void clearSeen() {
+        seen.clear();
+    }
+
+    @Benchmark
+    public long countWords() throws IOException {
+        long[] words = { 0 };
+        drain(new WordCounter(open(), nrWords -> words[0] = nrWords));
+        return words[0];
+    }
+
+    @Benchmark
+    public long filterWords() throws IOException {
+        CandidateFilter filter = new CandidateFilter(open(), seen);
+        drain(filter);
+        return filter.getAccepted();
+    }
+
+    private ReadableByteChannel open() {
+        return Channels.newChannel(new ByteArrayInputStream(data));
+    }
+
+    private void drain(ReadableByteChannel channel) throws IOException {
+        buffer.clear();
+        for (int cnt; (cnt = channel.read(buffer)) >= 0; ) {
+            // Filter returns 0 when buffer is almost full
+            if (cnt == 0 || !buffer.hasRemaining())
+                buffer.clear();
+        }
+    }
+}
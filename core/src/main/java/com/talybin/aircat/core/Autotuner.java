@@ -0,0 +1,238 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+// Finds hashcat workload parameters giving the best sustainable speed.
+// Parameters are swept one at a time (workload, optimized kernels, kernel
+// accel, loops, threads), each sweep keeping the best value found so far.
+// Candidates running longer than the limit are dropped, too long kernel
+// runs freeze the display and trip driver watchdogs. The winner is then
+// benchmarked several times in a row, a candidate whose speed falls off
+// (the device throttles) gives way to the next best. With thermal sensors
+// given, a candidate whose run heats the SoC past the throttle threshold
+// is rejected too, it would not keep its speed under thermal control.
+public class Autotuner {
+
+    private static final Logger log = Logger.getLogger("Autotuner");
+
+    public interface Runner {
+        // Benchmark the candidate, return hashes per second, 0 on failure.
+        // Should give up after maxRunMs.
+        long run(TuningProfile candidate, long maxRunMs) throws IOException, InterruptedException;
+    }
+
+    public interface Listener {
+        // Called after each benchmark run
+        void onProgress(int done, int total, TuningProfile tested);
+    }
+
+    static final int[] WORKLOADS = { 1, 2, 3, 4 };
+    static final int[] KERNEL_ACCELS = { 0, 8, 16, 32, 64, 128 };
+    static final int[] KERNEL_LOOPS = { 0, 64, 128, 256, 512, 1024 };
+    static final int[] KERNEL_THREADS = { 0, 32, 64, 128, 256 };
+
+    // Longest benchmark run accepted
+    public static final long DEFAULT_MAX_RUN_MS = 60_000;
+
+    // Runs of the winner, speed of the last one is kept
+    static final int SUSTAIN_RUNS = 3;
+
+    // Sustained speed should stay above this part of the first run
+    static final double SUSTAIN_RATIO = 0.85;
+
+    // Number of finalists checked for sustained speed
+    static final int NR_FINALISTS = 3;
+
+    // Cooldowns added while still above the threshold after a run
+    static final int MAX_EXTRA_COOLDOWNS = 3;
+
+    private final Runner runner;
+    private final long maxRunMs;
+    private final long cooldownMs;
+
+    @Nullable
+    private Listener listener = null;
+
+    // Null if temperature is not checked
+    @Nullable
+    private ThermalSensors sensors = null;
+    private double maxTemp = Double.NaN;
+
+    private int done = 0;
+    private int total = 0;
+
+    // Every measured candidate
+    private final List<TuningProfile> measured = new ArrayList<>();
+
+    // Cooldown lets the device cool between runs, so that earlier
+    // candidates do not slow down later ones
+    public Autotuner(Runner runner, long maxRunMs, long cooldownMs) {
+        this.runner = runner;
+        this.maxRunMs = maxRunMs;
+        this.cooldownMs = cooldownMs;
+    }
+
+    public Autotuner setListener(@Nullable Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    // Reject candidates heating the hottest SoC zone above maxTemp,
+    // Celsius
+    public Autotuner setThermal(@Nullable ThermalSensors sensors, double maxTemp) {
+        this.sensors = sensors;
+        this.maxTemp = maxTemp;
+        return this;
+    }
+
+    // Number of benchmark runs of a full tune
+    public static int getNrRuns() {
+        return WORKLOADS.length + 1 + (KERNEL_ACCELS.length - 1) +
+                (KERNEL_LOOPS.length - 1) + (KERNEL_THREADS.length - 1) +
+                NR_FINALISTS * SUSTAIN_RUNS;
+    }
+
+    // Blocks for the whole sweep. Return best profile with its sustained
+    // speed, null if nothing ran. Interrupt the thread to cancel.
+    @Nullable
+    public TuningProfile tune() throws InterruptedException {
+        done = 0;
+        total = getNrRuns();
+        measured.clear();
+
+        TuningProfile best = null;
+        for (int workload : WORKLOADS)
+            best = better(best, measure(TuningProfile.DEFAULT.withWorkload(workload)));
+        if (best == null)
+            return null;
+
+        best = better(best, measure(best.withOptimized(!best.optimized)));
+        for (int accel : KERNEL_ACCELS) {
+            if (accel != best.kernelAccel)
+                best = better(best, measure(best.withKernelAccel(accel)));
+        }
+        for (int loops : KERNEL_LOOPS) {
+            if (loops != best.kernelLoops)
+                best = better(best, measure(best.withKernelLoops(loops)));
+        }
+        for (int threads : KERNEL_THREADS) {
+            if (threads != best.kernelThreads)
+                best = better(best, measure(best.withKernelThreads(threads)));
+        }
+
+        // Fastest first
+        measured.sort(Comparator.comparingLong((TuningProfile p) -> p.speed).reversed());
+        TuningProfile fallback = null;
+        for (int i = 0; i < Math.min(NR_FINALISTS, measured.size()); ++i) {
+            TuningProfile candidate = measured.get(i);
+            TuningProfile sustained = sustain(candidate);
+            if (sustained == null)
+                continue;
+            if (sustained.speed >= candidate.speed * SUSTAIN_RATIO)
+                return sustained;
+            // Throttled, still may be the best there is
+            fallback = better(fallback, sustained);
+        }
+        return fallback;
+    }
+
+    // Null on failure
+    @Nullable
+    private TuningProfile measure(TuningProfile candidate) throws InterruptedException {
+        long speed = runOnce(candidate);
+        if (speed <= 0)
+            return null;
+        TuningProfile ret = candidate.withSpeed(speed);
+        measured.add(ret);
+        return ret;
+    }
+
+    // Speed of the last of consecutive runs, null if any failed
+    @Nullable
+    private TuningProfile sustain(TuningProfile candidate) throws InterruptedException {
+        long speed = 0;
+        for (int i = 0; i < SUSTAIN_RUNS; ++i) {
+            speed = runOnce(candidate, i == 0);
+            if (speed <= 0)
+                return null;
+        }
+        return candidate.withSpeed(speed);
+    }
+
+    private long runOnce(TuningProfile candidate) throws InterruptedException {
+        return runOnce(candidate, true);
+    }
+
+    private long runOnce(TuningProfile candidate, boolean cooldown) throws InterruptedException {
+        if (cooldown && cooldownMs > 0) {
+            Thread.sleep(cooldownMs);
+            // Still hot from a rejected candidate, give it longer
+            for (int i = 0; i < MAX_EXTRA_COOLDOWNS && isHot(); ++i)
+                Thread.sleep(cooldownMs);
+        }
+
+        long speed;
+        long start = System.nanoTime();
+        try {
+            speed = runner.run(candidate, maxRunMs);
+        }
+        catch (IOException e) {
+            log.warning(candidate + ": " + e.getMessage());
+            speed = 0;
+        }
+        if ((System.nanoTime() - start) / 1_000_000 > maxRunMs)
+            speed = 0;
+        if (speed > 0 && isHot()) {
+            log.info(candidate.getParams() + ": above " + maxTemp + "c");
+            speed = 0;
+        }
+
+        ++done;
+        if (listener != null)
+            listener.onProgress(done, total, candidate.withSpeed(speed));
+        return speed;
+    }
+
+    // Unknown temperature is not hot
+    private boolean isHot() {
+        return sensors != null && sensors.read().socTemp > maxTemp;
+    }
+
+    @Nullable
+    private static TuningProfile better(@Nullable TuningProfile a, @Nullable TuningProfile b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        return b.speed > a.speed ? b : a;
+    }
+
+    // Total speed of all devices from hashcat --benchmark --machine-readable
+    // output, lines of <device>:<mode>:<core clock>:<memory clock>:<ms>:<H/s>
+    public static long parseBenchmark(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+        long total = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            String[] fields = line.trim().split(":");
+            if (fields.length < 6)
+                continue;
+            try {
+                total += Long.parseLong(fields[fields.length - 1]);
+            }
+            catch (NumberFormatException e) {
+                // Not a result line
+            }
+        }
+        return total;
+    }
+}
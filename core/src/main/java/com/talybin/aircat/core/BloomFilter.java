@@ -0,0 +1,81 @@
+package com.talybin.aircat.core;
+
+import java.util.Arrays;
+
+// Fixed size probabilistic set of byte sequences. May report a sequence as
+// seen even if it was not (false positive), but never the opposite.
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long nrBits;
+    private final int nrHashes;
+
+    public BloomFilter(int sizeBytes, int nrHashes) {
+        bits = new long[Math.max(1, sizeBytes / 8)];
+        nrBits = bits.length * 64L;
+        this.nrHashes = nrHashes;
+    }
+
+    // Number of sequences the filter takes before the false positive
+    // rate exceeds fpp: n = -m / k * ln(1 - fpp^(1/k))
+    public long getCapacity(double fpp) {
+        return (long)(-(double)nrBits / nrHashes * Math.log(1 - Math.pow(fpp, 1.0 / nrHashes)));
+    }
+
+    // Forget all sequences
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+
+    // Add the sequence and return true if it was (probably) added before
+    public boolean put(byte[] data, int offset, int length) {
+        long hash = fmix64(fnv1a(data, offset, length));
+        // Double hashing, the step must be odd to not repeat too early
+        long step = fmix64(hash ^ 0x9e3779b97f4a7c15L) | 1;
+
+        boolean seen = true;
+        for (int i = 0; i < nrHashes; ++i, hash += step) {
+            long pos = (hash & Long.MAX_VALUE) % nrBits;
+            int idx = (int)(pos >>> 6);
+            long mask = 1L << pos;
+
+            if ((bits[idx] & mask) == 0) {
+                bits[idx] |= mask;
+                seen = false;
+            }
+        }
+        return seen;
+    }
+
+    // True if the sequence was (probably) added, the filter is not changed
+    public boolean mightContain(byte[] data, int offset, int length) {
+        long hash = fmix64(fnv1a(data, offset, length));
+        long step = fmix64(hash ^ 0x9e3779b97f4a7c15L) | 1;
+
+        for (int i = 0; i < nrHashes; ++i, hash += step) {
+            long pos = (hash & Long.MAX_VALUE) % nrBits;
+            if ((bits[(int)(pos >>> 6)] & (1L << pos)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static long fnv1a(byte[] data, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset, end = offset + length; i < end; ++i) {
+            hash ^= data[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Murmur3 finalizer, spreads the bits of FNV hash
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,20 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+// Raw (possibly compressed) content of a word list
+public interface ByteSource {
+
+    InputStream openStream() throws IOException;
+
+    // Return null if the source is not backed by a file
+    @Nullable
+    FileChannel openFileChannel();
+
+    // Size of raw content, 0 if unknown
+    long size();
+}
@@ -0,0 +1,188 @@
+package com.talybin.aircat.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+// Word list stage dropping candidates that hashcat would reject anyway.
+// Passes words of valid WPA password length only and suppresses
+// duplicates. Output lines are terminated by '\n' (no '\r').
+public class CandidateFilter implements ReadableByteChannel {
+
+    // WPA password length in bytes
+    public static final int MIN_LENGTH = 8;
+    public static final int MAX_LENGTH = 63;
+
+    // Memory used by duplicate detection. With 7 hashes the false
+    // positive rate (unique word dropped) stays below 0.1% up to about
+    // 8.9M words, see BloomFilter.getCapacity().
+    public static final int DEFAULT_DEDUP_SIZE = 16 * 1024 * 1024;
+    public static final int DEDUP_HASHES = 7;
+
+    // Beyond this rate duplicates are passed rather than dropping more
+    // unique words. Filtered output may be cached, so a loss is lasting.
+    public static final double MAX_FALSE_POSITIVE = 0.001;
+
+    // Identifies the output of the filter. Kept with anything counted in
+    // filtered words (cached copies, resume positions), which is stale
+    // once the filter changes.
+    public static final String CONFIG = MIN_LENGTH + "-" + MAX_LENGTH + "," +
+            DEFAULT_DEDUP_SIZE + "x" + DEDUP_HASHES + "," + MAX_FALSE_POSITIVE;
+
+    private final ReadableByteChannel src;
+    private final ByteBuffer input = ByteBuffer.allocate(64 * 1024);
+
+    // Current line, one extra byte for trailing '\r'
+    private final byte[] line = new byte[MAX_LENGTH + 1];
+    private int lineLength = 0;
+    private boolean lineTooLong = false;
+
+    // Null if duplicates should pass, also once the filter is full
+    private BloomFilter seen;
+
+    // Words put to the filter, and how many it takes
+    private long nrSeen = 0;
+    private final long seenCapacity;
+
+    private boolean eof = false;
+
+    // Written by reading thread, read by the output parser
+    private volatile long accepted = 0;
+    private volatile long rejected = 0;
+    private volatile boolean complete = false;
+
+    public CandidateFilter(ReadableByteChannel src) {
+        this(src, DEFAULT_DEDUP_SIZE);
+    }
+
+    // Size of 0 disables duplicate detection
+    public CandidateFilter(ReadableByteChannel src, int dedupSize) {
+        this(src, dedupSize > 0 ? new BloomFilter(dedupSize, DEDUP_HASHES) : null);
+    }
+
+    // Filter of duplicates given, e.g. to reuse a cleared one. Null
+    // disables duplicate detection.
+    public CandidateFilter(ReadableByteChannel src, BloomFilter seen) {
+        this.src = src;
+        this.seen = seen;
+        this.seenCapacity = seen != null ? seen.getCapacity(MAX_FALSE_POSITIVE) : 0;
+        input.flip();
+    }
+
+    // Duplicates pass from now on, the filter would drop too many
+    // unique words
+    public boolean isDedupFull() {
+        return seen == null && seenCapacity > 0;
+    }
+
+    // Number of words passed so far
+    public long getAccepted() {
+        return accepted;
+    }
+
+    // Number of words dropped so far
+    public long getRejected() {
+        return rejected;
+    }
+
+    // True when the whole source has been filtered
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Estimate number of words passing the filter out of specified
+    // number of source words. Exact once the source is exhausted.
+    public long estimateAccepted(long nrWords) {
+        long acc = accepted;
+        if (complete)
+            return acc;
+
+        long total = acc + rejected;
+        if (total == 0)
+            return nrWords;
+        return Math.round((double)nrWords * acc / total);
+    }
+
+    // Fill dst with accepted words. May return 0 if dst cannot hold
+    // a word of maximum length.
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+
+        while (dst.remaining() > MAX_LENGTH) {
+            if (!input.hasRemaining()) {
+                if (eof)
+                    break;
+
+                input.clear();
+                int cnt = src.read(input);
+                input.flip();
+
+                if (cnt < 0) {
+                    eof = true;
+                    // Last line without newline
+                    if (lineLength > 0 || lineTooLong)
+                        endLine(dst);
+                    complete = true;
+                    break;
+                }
+                continue;
+            }
+
+            byte[] data = input.array();
+            int pos = input.position();
+            int end = input.limit();
+
+            for (; pos < end && dst.remaining() > MAX_LENGTH; ++pos) {
+                byte b = data[pos];
+                if (b == '\n')
+                    endLine(dst);
+                else if (lineLength < line.length)
+                    line[lineLength++] = b;
+                else
+                    lineTooLong = true;
+            }
+            input.position(pos);
+        }
+
+        int cnt = dst.position() - start;
+        return cnt == 0 && complete ? -1 : cnt;
+    }
+
+    private void endLine(ByteBuffer dst) {
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == '\r')
+            --length;
+
+        if (lineTooLong || length < MIN_LENGTH || length > MAX_LENGTH || isDuplicate(length))
+            ++rejected;
+        else {
+            dst.put(line, 0, length).put((byte)'\n');
+            ++accepted;
+        }
+
+        lineLength = 0;
+        lineTooLong = false;
+    }
+
+    private boolean isDuplicate(int length) {
+        if (seen == null)
+            return false;
+        if (nrSeen >= seenCapacity) {
+            seen = null;
+            return false;
+        }
+        ++nrSeen;
+        return seen.put(line, 0, length);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return src.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        src.close();
+    }
+}
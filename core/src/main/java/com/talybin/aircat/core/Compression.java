@@ -0,0 +1,154 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+// Reading of word lists in following formats: gzip, zip, plain
+public class Compression {
+
+    // Number of decompressed bytes to sample when estimating
+    private static final int ESTIMATE_SAMPLE_SIZE = 1024 * 1024;
+
+    // Open decompressed content of the source
+    public static InputStream openInputStream(ByteSource source) throws IOException {
+        return decompress(source.openStream());
+    }
+
+    public static InputStream decompress(InputStream is) throws IOException {
+        if (!is.markSupported())
+            is = new BufferedInputStream(is);
+
+        is.mark(1024);
+
+        // Check if Gz
+        try {
+            return new GZIPInputStream(is);
+        }
+        catch (IOException ignored) {
+            is.reset();
+        }
+        // Check if zip
+        try {
+            ZipInputStream zis = new ZipInputStream(is);
+            if (zis.getNextEntry() != null)
+                return zis;
+        }
+        catch (IOException ignored) {
+        }
+        // Not a zip, header has been consumed anyway
+        is.reset();
+        // Assume it is a plain text
+        return is;
+    }
+
+    // Open channel of decompressed content. Plain files are read directly
+    // thru FileChannel, compressed ones or those not backed by a file are
+    // decompressed as in openInputStream.
+    public static ReadableByteChannel openChannel(ByteSource source) throws IOException {
+        FileChannel channel = source.openFileChannel();
+        if (channel != null) {
+            if (!isCompressed(channel)) {
+                channel.position(0);
+                return channel;
+            }
+            channel.close();
+        }
+        return Channels.newChannel(openInputStream(source));
+    }
+
+    // Return true if file is readable and not compressed
+    public static boolean isPlainFile(File file) {
+        if (!file.isFile() || !file.canRead())
+            return false;
+
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            return !isCompressed(channel);
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Check gzip (1f 8b) and zip (50 4b 03 04) signatures
+    public static boolean isCompressed(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        while (magic.hasRemaining() && channel.read(magic) >= 0);
+
+        if (magic.position() >= 2 && magic.get(0) == 0x1f && magic.get(1) == (byte)0x8b)
+            return true;
+        return magic.position() == 4 &&
+                magic.get(0) == 0x50 && magic.get(1) == 0x4b &&
+                magic.get(2) == 0x03 && magic.get(3) == 0x04;
+    }
+
+    // Estimate number of words in word list by counting lines in
+    // the beginning of it. Return null if source size is unknown.
+    @Nullable
+    public static Long estimateWords(ByteSource source) throws IOException {
+        long size = source.size();
+        if (size <= 0)
+            return null;
+
+        CountingInputStream raw = new CountingInputStream(source.openStream());
+        try (InputStream is = decompress(raw)) {
+            byte[] buffer = new byte[8192];
+            long lines = 0;
+            long read = 0;
+
+            for (int cnt; read < ESTIMATE_SAMPLE_SIZE && (cnt = is.read(buffer)) > 0; ) {
+                read += cnt;
+                for (int i = 0; i < cnt; ++i)
+                    if (buffer[i] == '\n') ++lines;
+            }
+
+            // Whole list has been read, this is exact
+            if (is.read() < 0)
+                return lines;
+            // Scale by part of source consumed
+            return lines * size / Math.max(1, raw.count);
+        }
+    }
+
+    // Counts bytes read from underlying stream
+    private static class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int ret = super.read();
+            if (ret >= 0)
+                ++count;
+            return ret;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int ret = super.read(b, off, len);
+            if (ret > 0)
+                count += ret;
+            return ret;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long ret = super.skip(n);
+            count += ret;
+            return ret;
+        }
+    }
+}
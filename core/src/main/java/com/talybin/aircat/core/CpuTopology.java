@@ -0,0 +1,102 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// CPU cores grouped in clusters of the same maximum frequency, as read
+// from sysfs. On big.LITTLE SoCs clusters differ a lot in capacity.
+// Root is "/" on a device, tests may use a directory with fake files.
+public class CpuTopology {
+
+    private static final Pattern CPU_DIR = Pattern.compile("cpu[0-9]+");
+
+    public static class Cluster {
+        // Core numbers, ascending
+        public final List<Integer> cpus;
+
+        // kHz, 0 if unknown
+        public final long maxFreq;
+
+        Cluster(List<Integer> cpus, long maxFreq) {
+            this.cpus = Collections.unmodifiableList(cpus);
+            this.maxFreq = maxFreq;
+        }
+
+        // Relative capacity, cores times frequency
+        public long getCapacity() {
+            return cpus.size() * Math.max(1, maxFreq);
+        }
+    }
+
+    // Slowest first
+    public final List<Cluster> clusters;
+
+    private CpuTopology(List<Cluster> clusters) {
+        this.clusters = Collections.unmodifiableList(clusters);
+    }
+
+    public static CpuTopology read(File root) {
+        File dir = new File(root, "sys/devices/system/cpu");
+        String[] names = dir.list();
+
+        // Cores by max frequency
+        Map<Long, List<Integer>> byFreq = new TreeMap<>();
+        if (names != null) {
+            for (String name : names) {
+                if (!CPU_DIR.matcher(name).matches())
+                    continue;
+                int cpu = Integer.parseInt(name.substring(3));
+                long freq = readLong(new File(dir, name + "/cpufreq/cpuinfo_max_freq"));
+                byFreq.computeIfAbsent(freq, k -> new ArrayList<>()).add(cpu);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>();
+        byFreq.forEach((freq, cpus) -> {
+            Collections.sort(cpus);
+            clusters.add(new Cluster(cpus, freq));
+        });
+        return new CpuTopology(clusters);
+    }
+
+    public int getNrCpus() {
+        int cnt = 0;
+        for (Cluster cluster : clusters)
+            cnt += cluster.cpus.size();
+        return cnt;
+    }
+
+    // 0 if missing or not a number
+    static long readLong(File file) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+        }
+        catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // For debug purpose
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Cluster cluster : clusters) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(String.format(Locale.ROOT, "%s @ %d MHz", cluster.cpus, cluster.maxFreq / 1000));
+        }
+        return sb.toString();
+    }
+}
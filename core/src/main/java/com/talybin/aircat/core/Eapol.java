@@ -1,4 +1,4 @@
-package com.talybin.aircat;
+package com.talybin.aircat.core;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -23,11 +23,11 @@ public class Eapol {
         return false;
     }
 
-    static Eapol fromStream(InputStream is) {
+    public static Eapol fromStream(InputStream is) {
         return fromStream(new InputStreamReader(is));
     }
 
-    static Eapol fromStream(InputStreamReader irs) {
+    public static Eapol fromStream(InputStreamReader irs) {
 
         Eapol info = new Eapol();
         Scanner scanner = new Scanner(irs);
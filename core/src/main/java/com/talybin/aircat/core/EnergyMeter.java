@@ -0,0 +1,113 @@
+package com.talybin.aircat.core;
+
+import java.io.File;
+
+// Energy drawn from the battery over a session. Uses the charge counter
+// of the fuel gauge where the device has one, otherwise current and
+// voltage samples integrated over time. Measures the whole device, idle
+// draw included. Root is "/" on a device, tests may use a directory with
+// fake files laid out the same:
+//
+//  sys/class/power_supply/battery/{current_now,voltage_now,charge_counter,status}
+//
+// Nothing is measured while charging, the battery current is then the
+// charger's minus the device's.
+public class EnergyMeter {
+
+    private final File batteryDir;
+
+    private long lastMs = -1;
+    private double lastAmps = 0;
+    private double lastVolts = 0;
+
+    // Microampere-hours, -1 if no counter
+    private long startCounter = -1;
+    private long lastCounter = -1;
+
+    private double integratedJoules = 0;
+    private double integratedMah = 0;
+
+    private double voltSum = 0;
+    private int nrSamples = 0;
+    private boolean charged = false;
+
+    public EnergyMeter(File root) {
+        batteryDir = new File(root, "sys/class/power_supply/battery");
+    }
+
+    public synchronized void start(long nowMs) {
+        lastMs = -1;
+        integratedJoules = 0;
+        integratedMah = 0;
+        voltSum = 0;
+        nrSamples = 0;
+        charged = false;
+        sample(nowMs);
+        startCounter = lastCounter;
+    }
+
+    public synchronized void sample(long nowMs) {
+        String status = ThermalSensors.readString(new File(batteryDir, "status"));
+        if ("Charging".equalsIgnoreCase(status) || "Full".equalsIgnoreCase(status))
+            charged = true;
+
+        // Sign of current differs between devices
+        double amps = Math.abs(ThermalSensors.readLong(new File(batteryDir, "current_now"), 0)) / 1e6;
+        double volts = ThermalSensors.readLong(new File(batteryDir, "voltage_now"), 0) / 1e6;
+        long counter = ThermalSensors.readLong(new File(batteryDir, "charge_counter"), -1);
+
+        // Trapezoids between samples
+        if (lastMs >= 0 && nowMs > lastMs) {
+            double hours = (nowMs - lastMs) / 3_600_000.0;
+            double meanAmps = (amps + lastAmps) / 2;
+            integratedMah += meanAmps * 1000 * hours;
+            integratedJoules += meanAmps * (volts + lastVolts) / 2 * hours * 3600;
+        }
+
+        lastMs = nowMs;
+        lastAmps = amps;
+        lastVolts = volts;
+        lastCounter = counter;
+        if (volts > 0) {
+            voltSum += volts;
+            ++nrSamples;
+        }
+    }
+
+    // Measured over more than one sample and never charging
+    public synchronized boolean isValid() {
+        return !charged && nrSamples > 1 && (integratedMah > 0 || getCounterMah() > 0);
+    }
+
+    // Milliampere-hours drawn, 0 if not valid
+    public synchronized double getMah() {
+        if (!isValid())
+            return 0;
+        double counterMah = getCounterMah();
+        return counterMah > 0 ? counterMah : integratedMah;
+    }
+
+    // Joules drawn, 0 if not valid. From the counter at mean voltage.
+    public synchronized double getJoules() {
+        if (!isValid())
+            return 0;
+        double counterMah = getCounterMah();
+        return counterMah > 0 ? counterMah * 3.6 * voltSum / nrSamples : integratedJoules;
+    }
+
+    // Counter change, 0 if no counter or it did not move yet
+    private double getCounterMah() {
+        return startCounter >= 0 && lastCounter >= 0 ?
+                Math.max(0, startCounter - lastCounter) / 1000.0 : 0;
+    }
+
+    // Hashes per joule, 0 if unknown
+    public static double hashesPerJoule(long hashes, double joules) {
+        return joules > 0 ? hashes / joules : 0;
+    }
+
+    // Milliampere-hours per million candidates, 0 if unknown
+    public static double mahPerMillion(double mah, long candidates) {
+        return candidates > 0 ? mah * 1e6 / candidates : 0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Feeds a word list to hashcat in two stages: a reader (which also does
+// decompression) and a writer, connected by a bounded ring of buffers.
+// While hashcat consumes one chunk the reader inflates the next ones.
+public class FeedPipeline {
+
+    public static final int DEFAULT_NR_BUFFERS = 4;
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    // End of stream marker
+    private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+    // Wakes a stage waiting on an empty queue when closed
+    private static final ByteBuffer WAKE = ByteBuffer.allocate(0);
+
+    public interface ErrorListener {
+        void onError(Exception e);
+    }
+
+    public static class Stats {
+        // Number of bytes written to sink
+        public long bytes = 0;
+
+        // Reader waited for a free buffer, hashcat is the bottleneck
+        public long producerStalls = 0;
+        public long producerStallNanos = 0;
+
+        // Writer waited for data, reader is the bottleneck
+        public long consumerStalls = 0;
+        public long consumerStallNanos = 0;
+
+        // Time since start, until writer finished if it has
+        public long elapsedNanos = 0;
+
+        @NonNull
+        public String toString() {
+            return String.format("bytes: %d, producer stalls: %d (%d ms), consumer stalls: %d (%d ms)",
+                    bytes,
+                    producerStalls, TimeUnit.NANOSECONDS.toMillis(producerStallNanos),
+                    consumerStalls, TimeUnit.NANOSECONDS.toMillis(consumerStallNanos));
+        }
+    }
+
+    private final ExecutorService executor;
+    private final ErrorListener errorListener;
+
+    // Buffers ready to be filled by reader
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    // Buffers ready to be written to sink
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+
+    // Set when any of the stages is done and the other should quit
+    private volatile boolean closed = false;
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong producerStalls = new AtomicLong();
+    private final AtomicLong producerStallNanos = new AtomicLong();
+    private final AtomicLong consumerStalls = new AtomicLong();
+    private final AtomicLong consumerStallNanos = new AtomicLong();
+
+    private volatile long startNanos = 0;
+    private volatile long endNanos = 0;
+
+    public FeedPipeline(ExecutorService executor, ErrorListener errorListener) {
+        this(executor, errorListener, DEFAULT_NR_BUFFERS, DEFAULT_BUFFER_SIZE);
+    }
+
+    public FeedPipeline(ExecutorService executor, ErrorListener errorListener,
+                 int nrBuffers, int bufferSize)
+    {
+        this.executor = executor;
+        this.errorListener = errorListener;
+
+        // Extra slots for the markers, so that putting a buffer
+        // back never blocks
+        freeBuffers = new ArrayBlockingQueue<>(nrBuffers + 1);
+        filledBuffers = new ArrayBlockingQueue<>(nrBuffers + 2);
+
+        for (int i = 0; i < nrBuffers; ++i)
+            freeBuffers.add(ByteBuffer.allocateDirect(bufferSize));
+    }
+
+    // Async copy content of source to sink.
+    // Closing both channels on complete.
+    public void start(ReadableByteChannel src, WritableByteChannel sink) {
+        startNanos = System.nanoTime();
+        executor.execute(() -> read(src));
+        executor.execute(() -> write(sink));
+    }
+
+    // Stop both stages, the channels will be closed by them
+    public synchronized void close() {
+        // One marker per queue, more would fill the free ones
+        if (closed)
+            return;
+        closed = true;
+        // A stage waiting for a buffer finds the marker. Nobody waits
+        // on a queue that is not empty.
+        freeBuffers.offer(WAKE);
+        filledBuffers.offer(WAKE);
+    }
+
+    @NonNull
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.bytes = bytes.get();
+        stats.producerStalls = producerStalls.get();
+        stats.producerStallNanos = producerStallNanos.get();
+        stats.consumerStalls = consumerStalls.get();
+        stats.consumerStallNanos = consumerStallNanos.get();
+        if (startNanos != 0)
+            stats.elapsedNanos = (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+        return stats;
+    }
+
+    private void read(ReadableByteChannel src) {
+        try {
+            for (boolean eof = false; !eof; ) {
+                ByteBuffer buffer = take(freeBuffers, producerStalls, producerStallNanos);
+                if (buffer == null)
+                    return;
+
+                // Fill the whole buffer, decompressing streams give
+                // a few kilobytes per read only. Filtering stages may
+                // return 0 when buffer is almost full.
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    int cnt = src.read(buffer);
+                    if (cnt < 0)
+                        eof = true;
+                    if (cnt <= 0)
+                        break;
+                }
+                buffer.flip();
+
+                if (buffer.hasRemaining())
+                    filledBuffers.put(buffer);
+                else
+                    freeBuffers.put(buffer);
+            }
+        }
+        catch (IOException e) {
+            // Source has been closed by a stop request
+            if (!closed)
+                errorListener.onError(e);
+        }
+        catch (InterruptedException ignored) {
+        }
+        finally {
+            filledBuffers.offer(EOF);
+            IoUtils.silentClose(src);
+        }
+    }
+
+    private void write(WritableByteChannel sink) {
+        try {
+            for (;;) {
+                ByteBuffer buffer = take(filledBuffers, consumerStalls, consumerStallNanos);
+                if (buffer == null || buffer == EOF)
+                    break;
+
+                bytes.addAndGet(buffer.remaining());
+                while (buffer.hasRemaining())
+                    sink.write(buffer);
+
+                freeBuffers.put(buffer);
+            }
+        }
+        catch (IOException e) {
+            // Broken pipe is ok, just means that hashcat has ended (probably
+            // found passwords for all jobs) and sink has closed while writing.
+            // All other errors should be reported. Android reports it as EPIPE,
+            // other JVMs as "Broken pipe".
+            String err = e.getMessage();
+            if (!closed && (err == null || !(err.contains("EPIPE") || err.contains("Broken pipe"))))
+                errorListener.onError(e);
+        }
+        catch (InterruptedException ignored) {
+        }
+        finally {
+            endNanos = System.nanoTime();
+            // Reader may wait for a free buffer
+            close();
+            IoUtils.silentClose(sink);
+        }
+    }
+
+    // Take next buffer from the queue counting the time it was blocked.
+    // Return null if pipeline has been closed while waiting.
+    private ByteBuffer take(BlockingQueue<ByteBuffer> queue,
+                            AtomicLong stalls, AtomicLong stallNanos) throws InterruptedException
+    {
+        ByteBuffer buffer = queue.poll();
+        if (buffer == null) {
+            // Marker is offered after setting the flag
+            if (closed)
+                return null;
+
+            stalls.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                buffer = queue.take();
+            }
+            finally {
+                stallNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        return buffer != WAKE ? buffer : null;
+    }
+}
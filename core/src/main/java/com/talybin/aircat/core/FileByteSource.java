@@ -0,0 +1,39 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+public class FileByteSource implements ByteSource {
+
+    private final File file;
+
+    public FileByteSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Nullable
+    @Override
+    public FileChannel openFileChannel() {
+        try {
+            return FileChannel.open(file.toPath());
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public long size() {
+        return file.length();
+    }
+}
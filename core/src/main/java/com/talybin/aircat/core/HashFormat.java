@@ -0,0 +1,47 @@
+package com.talybin.aircat.core;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+// Hash formatting for hashcat mode 16800
+public class HashFormat {
+
+    // Return hash in hashcat format: <pmkid>*<ap mac>*<client mac>*<ssid as hex>
+    public static String format(PmkidHash hash) {
+        String ssid = hash.getSsid();
+        return String.format("%s*%s*%s*%s",
+                hash.getPmkId(),
+                hash.getApMac().replace(":", ""),
+                hash.getClientMac().replace(":", ""),
+                toHexSequence(ssid != null ? ssid : ""));
+    }
+
+    // Convert string to series of ascii bytes in hex format
+    public static String toHexSequence(String src) {
+        StringBuilder buffer = new StringBuilder();
+        char[] digits = new char[2];
+
+        for (byte value : src.getBytes()) {
+            digits[0] = Character.forDigit((value >> 4) & 0xf, 16);
+            digits[1] = Character.forDigit(value & 0xf, 16);
+            buffer.append(digits);
+        }
+        return buffer.toString();
+    }
+
+    // Write hashes to temporary file to be read by hashcat process
+    public static File createHashFile(List<? extends PmkidHash> hashes) throws IOException {
+        File hashFile = File.createTempFile("hashcat-", ".16800");
+
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(hashFile))) {
+            for (PmkidHash hash : hashes) {
+                bufferedWriter.write(format(hash));
+                bufferedWriter.newLine();
+            }
+        }
+        return hashFile;
+    }
+}
@@ -0,0 +1,188 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Starts hashcat cracking PMKID hashes (mode 16800) in straight attack
+// mode. Words are read from the dictionary file if set, otherwise from
+// stdin of the process.
+public class HashcatLauncher {
+
+    public static final String DEFAULT_EXECUTABLE = "./hashcat";
+
+    private final File workingDir;
+    private final String executable;
+    private final Settings settings;
+
+    // Number of words to skip, used with dictionary only
+    private long skip = 0;
+
+    // Null if words are fed thru stdin
+    private String dictionary = null;
+
+    // Overrides workload setting if set
+    private TuningProfile profile = null;
+
+    // Number of words to try, 0 for all, used with dictionary only
+    private long limit = 0;
+
+    // Cores the process may run on, empty for any
+    private List<Integer> cpus = Collections.emptyList();
+
+    public HashcatLauncher(File workingDir, Settings settings) {
+        this(workingDir, DEFAULT_EXECUTABLE, settings);
+    }
+
+    // Executable is relative to working directory
+    public HashcatLauncher(File workingDir, String executable, Settings settings) {
+        this.workingDir = workingDir;
+        this.executable = executable;
+        this.settings = settings;
+    }
+
+    public HashcatLauncher setDictionary(String path, long skip) {
+        this.dictionary = path;
+        this.skip = skip;
+        return this;
+    }
+
+    // Try only this many words of the dictionary, used by sharded workers
+    public HashcatLauncher setLimit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    // Pin the process to the cores with taskset. CPU OpenCL runtime
+    // (pocl) is told to use as many threads as there are cores.
+    public HashcatLauncher setCpus(List<Integer> cpus) {
+        this.cpus = cpus;
+        return this;
+    }
+
+    // Workload parameters found by autotuner, null for settings
+    public HashcatLauncher setProfile(@Nullable TuningProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public List<String> getArgs(File hashFile) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                executable,
+
+                // Hash-type: WPA-PMKID-PBKDF2
+                "-m", "16800",
+
+                // Attack Mode: Straight
+                "-a", "0",
+
+                // Suppress output
+                "--quiet",
+
+                // Enable automatic update of the status screen.
+                // Sets seconds between status screen updates to X.
+                "--status", "--status-timer=" +
+                settings.getString("hashcat_refresh_interval", "3"),
+
+                // Display the status view in a machine-readable format
+                "--machine-readable",
+
+                // Enable removal of hashes once they are cracked.
+                // Remained jobs will run faster.
+                "--remove",
+
+                // Disable the logfile. Not reading it here.
+                "--logfile-disable",
+
+                // Do not write potfile. Using app database instead.
+                "--potfile-disable",
+
+                hashFile.getPath()
+        ));
+
+        // Enable a specific workload profile from settings.
+        // Default is 2 (Economic).
+        if (profile != null)
+            profile.addArgs(args);
+        else {
+            args.add("-w");
+            args.add(settings.getString("hashcat_power_usage", "2"));
+        }
+
+        // Status as JSON, needs hashcat 6.1 or newer. Password lines
+        // stay machine readable.
+        if (settings.getBoolean("hashcat_status_json", false))
+            args.add(args.indexOf("--machine-readable") + 1, "--status-json");
+
+        // Dictionary file, otherwise read from stdin
+        if (dictionary != null) {
+            if (skip > 0)
+                args.add("--skip=" + skip);
+            if (limit > 0)
+                args.add("--limit=" + limit);
+            args.add(dictionary);
+        }
+
+        if (!cpus.isEmpty())
+            args.addAll(0, Arrays.asList("taskset", getCpuMask(cpus)));
+        return args;
+    }
+
+    // Hex mask of taskset
+    static String getCpuMask(List<Integer> cpus) {
+        long mask = 0;
+        for (int cpu : cpus)
+            mask |= 1L << cpu;
+        return Long.toHexString(mask);
+    }
+
+    // Benchmark of mode 16800 with given parameters, one result line
+    // per device
+    public List<String> getBenchmarkArgs(TuningProfile candidate) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                executable,
+                "--benchmark",
+                "-m", "16800",
+                "--machine-readable"
+        ));
+        candidate.addArgs(args);
+        return args;
+    }
+
+    public Process start(File hashFile) throws IOException {
+        return exec(getArgs(hashFile), getEnv());
+    }
+
+    public Process startBenchmark(TuningProfile candidate) throws IOException {
+        return exec(getBenchmarkArgs(candidate), null);
+    }
+
+    // Null to inherit environment of the app
+    @Nullable
+    private String[] getEnv() {
+        if (cpus.isEmpty())
+            return null;
+
+        List<String> env = new ArrayList<>();
+        for (Map.Entry<String, String> var : System.getenv().entrySet())
+            env.add(var.getKey() + "=" + var.getValue());
+        env.add("POCL_MAX_PTHREAD_COUNT=" + cpus.size());
+        return env.toArray(new String[0]);
+    }
+
+    private Process exec(List<String> args, @Nullable String[] env) throws IOException {
+        return Runtime.getRuntime().exec(
+                args.toArray(new String[0]),
+                // Environment variables, null to inherit
+                env,
+                // Working directory
+                workingDir
+        );
+    }
+}
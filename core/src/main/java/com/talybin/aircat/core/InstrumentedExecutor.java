@@ -0,0 +1,34 @@
+package com.talybin.aircat.core;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Fixed thread pool recording how long tasks wait in queue and run,
+// in milliseconds, to histograms <name>.queue_ms and <name>.run_ms
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    private final Metrics.Histogram queueTime;
+    private final Metrics.Histogram runTime;
+
+    public InstrumentedExecutor(int nrThreads, String name) {
+        super(nrThreads, nrThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        queueTime = Metrics.get().histogram(name + ".queue_ms");
+        runTime = Metrics.get().histogram(name + ".run_ms");
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long queued = System.nanoTime();
+        super.execute(() -> {
+            long start = System.nanoTime();
+            queueTime.record((start - queued) / 1_000_000);
+            try {
+                command.run();
+            }
+            finally {
+                runTime.record((System.nanoTime() - start) / 1_000_000);
+            }
+        });
+    }
+}
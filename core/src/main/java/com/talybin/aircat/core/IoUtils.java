@@ -0,0 +1,27 @@
+package com.talybin.aircat.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class IoUtils {
+
+    public static String toString(InputStream src) throws IOException {
+        InputStreamReader isr = new InputStreamReader(src);
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[1024];
+        int length;
+
+        while ((length = isr.read(buffer)) != -1)
+            sb.append(buffer, 0, length);
+        return sb.toString();
+    }
+
+    public static void silentClose(Closeable... objs) {
+        for (Closeable obj : objs) {
+            if (obj != null)
+                try { obj.close(); } catch (IOException ignored) {}
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Last lines of hashcat output other than status and passwords, tagged
+// with source and severity. Storage is allocated once, lines longer
+// than MAX_LINE_LENGTH bytes are truncated. Thread safe.
+public class LogRing {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int MAX_LINE_LENGTH = 240;
+
+    public enum Source { STDOUT, STDERR }
+
+    public enum Severity { INFO, WARNING, ERROR, FATAL }
+
+    public static class Entry {
+        public final long timeMillis;
+        public final Source source;
+        public final Severity severity;
+        public final String line;
+
+        Entry(long timeMillis, Source source, Severity severity, String line) {
+            this.timeMillis = timeMillis;
+            this.source = source;
+            this.severity = severity;
+            this.line = line;
+        }
+
+        @NonNull
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s %-7s %s",
+                    new SimpleDateFormat("HH:mm:ss.SSS", Locale.ROOT).format(new Date(timeMillis)),
+                    source == Source.STDOUT ? "out" : "err", severity, line);
+        }
+    }
+
+    // Lower case, matched anywhere in line. Checked from the most severe.
+    private static final byte[][] FATAL_PATTERNS = patterns(
+            "no devices found",
+            "no devices left",
+            "out of memory",
+            "cl_mem_object_allocation_failure",
+            "clbuildprogram",
+            "kernel build failed",
+            "segmentation fault",
+            "permission denied",
+            "cannot execute",
+            ": not found",      // Shell: executable missing
+            "killed");
+    private static final byte[][] ERROR_PATTERNS = patterns(
+            "error",
+            "failed");
+    private static final byte[][] WARNING_PATTERNS = patterns(
+            "warning",
+            "attention",
+            "cl_out_of_resources");
+
+    private final int capacity;
+    private final long[] times;
+    private final Source[] sources;
+    private final Severity[] severities;
+    private final byte[][] lines;
+    private final int[] lengths;
+
+    // Number of entries ever added, next one goes to written % capacity
+    private long written = 0;
+    private final long[] counts = new long[Severity.values().length];
+
+    public LogRing(int capacity) {
+        this.capacity = capacity;
+        times = new long[capacity];
+        sources = new Source[capacity];
+        severities = new Severity[capacity];
+        lines = new byte[capacity][MAX_LINE_LENGTH];
+        lengths = new int[capacity];
+    }
+
+    // Add line from buffer, return its severity
+    public Severity add(Source source, byte[] data, int offset, int length) {
+        Severity severity = classify(data, offset, length);
+        length = Math.min(length, MAX_LINE_LENGTH);
+
+        synchronized (this) {
+            int slot = (int)(written++ % capacity);
+            times[slot] = System.currentTimeMillis();
+            sources[slot] = source;
+            severities[slot] = severity;
+            System.arraycopy(data, offset, lines[slot], 0, length);
+            lengths[slot] = length;
+            ++counts[severity.ordinal()];
+        }
+        return severity;
+    }
+
+    public Severity add(Source source, String line) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        return add(source, data, 0, data.length);
+    }
+
+    // Number of lines of the severity ever added
+    public synchronized long getCount(Severity severity) {
+        return counts[severity.ordinal()];
+    }
+
+    // Kept entries, oldest first
+    @NonNull
+    public synchronized List<Entry> getEntries() {
+        int size = (int)Math.min(written, capacity);
+        List<Entry> ret = new ArrayList<>(size);
+        for (long i = written - size; i < written; ++i) {
+            int slot = (int)(i % capacity);
+            ret.add(new Entry(times[slot], sources[slot], severities[slot],
+                    new String(lines[slot], 0, lengths[slot], StandardCharsets.UTF_8)));
+        }
+        return ret;
+    }
+
+    public synchronized void clear() {
+        written = 0;
+        Arrays.fill(counts, 0);
+    }
+
+    // One entry per line
+    @NonNull
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : getEntries())
+            sb.append(entry).append('\n');
+        return sb.toString();
+    }
+
+    public static Severity classify(byte[] data, int offset, int length) {
+        if (matches(data, offset, length, FATAL_PATTERNS))
+            return Severity.FATAL;
+        if (matches(data, offset, length, ERROR_PATTERNS))
+            return Severity.ERROR;
+        if (matches(data, offset, length, WARNING_PATTERNS))
+            return Severity.WARNING;
+        return Severity.INFO;
+    }
+
+    private static boolean matches(byte[] data, int offset, int length, byte[][] patterns) {
+        for (byte[] pattern : patterns) {
+            if (indexOfIgnoreCase(data, offset, length, pattern) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    // ASCII only, pattern is lower case
+    private static int indexOfIgnoreCase(byte[] data, int offset, int length, byte[] pattern) {
+        outer:
+        for (int i = offset, end = offset + length - pattern.length; i <= end; ++i) {
+            for (int j = 0; j < pattern.length; ++j) {
+                byte b = data[i + j];
+                if (b >= 'A' && b <= 'Z')
+                    b += 'a' - 'A';
+                if (b != pattern[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[][] patterns(String... patterns) {
+        byte[][] ret = new byte[patterns.length][];
+        for (int i = 0; i < patterns.length; ++i)
+            ret[i] = patterns[i].getBytes(StandardCharsets.US_ASCII);
+        return ret;
+    }
+}
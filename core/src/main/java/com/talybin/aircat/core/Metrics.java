@@ -0,0 +1,236 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Registry of named counters, gauges and histograms describing where
+// time goes in the pipeline. Metrics are created on first use and may be
+// kept by callers. All methods are thread safe.
+public class Metrics {
+
+    private static final Metrics global = new Metrics();
+
+    public static Metrics get() {
+        return global;
+    }
+
+    private interface Metric {
+        void appendText(StringBuilder sb, String name);
+        void appendJson(StringBuilder sb);
+        void reset();
+    }
+
+    public static class Counter implements Metric {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void reset() {
+            value.reset();
+        }
+
+        @Override
+        public void appendText(StringBuilder sb, String name) {
+            sb.append(String.format(Locale.ROOT, "%-36s %d%n", name, get()));
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            sb.append("{\"type\":\"counter\",\"value\":").append(get()).append('}');
+        }
+    }
+
+    // Last set value
+    public static class Gauge implements Metric {
+        private volatile double value = 0;
+
+        public void set(double value) {
+            this.value = value;
+        }
+
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public void reset() {
+            value = 0;
+        }
+
+        @Override
+        public void appendText(StringBuilder sb, String name) {
+            sb.append(String.format(Locale.ROOT, "%-36s %.2f%n", name, get()));
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            sb.append("{\"type\":\"gauge\",\"value\":").append(json(get())).append('}');
+        }
+    }
+
+    // Distribution of non-negative values in power of two buckets.
+    // Percentiles are upper bounds of the bucket they fall into.
+    public static class Histogram implements Metric {
+        private static final int NR_BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(NR_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        public void record(long value) {
+            value = Math.max(0, value);
+            // Bucket i holds values from 2^(i-1) to 2^i - 1, bucket 0 holds 0
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            sum.add(value);
+            min.accumulateAndGet(value, Math::min);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        // Record duration of the task in milliseconds
+        public void time(Runnable task) {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            }
+            finally {
+                record((System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        // Not atomic, records made meanwhile may be partially kept
+        @Override
+        public void reset() {
+            for (int i = 0; i < NR_BUCKETS; ++i)
+                buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            min.set(Long.MAX_VALUE);
+            max.set(Long.MIN_VALUE);
+        }
+
+        public double getMean() {
+            long cnt = getCount();
+            return cnt > 0 ? (double)sum.sum() / cnt : 0;
+        }
+
+        // Quantile q in [0, 1], 0 if empty
+        public long getPercentile(double q) {
+            long cnt = getCount();
+            if (cnt == 0)
+                return 0;
+
+            long rank = (long)Math.ceil(q * cnt);
+            long seen = 0;
+            for (int i = 0; i < NR_BUCKETS; ++i) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(1, rank))
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+            }
+            return max.get();
+        }
+
+        @Override
+        public void appendText(StringBuilder sb, String name) {
+            long cnt = getCount();
+            sb.append(String.format(Locale.ROOT,
+                    "%-36s n=%d mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d%n",
+                    name, cnt, getMean(),
+                    cnt > 0 ? min.get() : 0,
+                    getPercentile(0.5), getPercentile(0.9), getPercentile(0.99),
+                    cnt > 0 ? max.get() : 0));
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            long cnt = getCount();
+            sb.append("{\"type\":\"histogram\",\"count\":").append(cnt)
+                    .append(",\"mean\":").append(json(getMean()))
+                    .append(",\"min\":").append(cnt > 0 ? min.get() : 0)
+                    .append(",\"p50\":").append(getPercentile(0.5))
+                    .append(",\"p90\":").append(getPercentile(0.9))
+                    .append(",\"p99\":").append(getPercentile(0.99))
+                    .append(",\"max\":").append(cnt > 0 ? max.get() : 0)
+                    .append('}');
+        }
+    }
+
+    // Sorted by name for stable output
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name) {
+        return get(name, Counter.class, n -> new Counter());
+    }
+
+    public Gauge gauge(String name) {
+        return get(name, Gauge.class, n -> new Gauge());
+    }
+
+    public Histogram histogram(String name) {
+        return get(name, Histogram.class, n -> new Histogram());
+    }
+
+    // Zero all metrics, references to them stay valid
+    public void reset() {
+        metrics.values().forEach(Metric::reset);
+    }
+
+    // One metric per line
+    @NonNull
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Metric> entry : metrics.entrySet())
+            entry.getValue().appendText(sb, entry.getKey());
+        return sb.toString();
+    }
+
+    // Object of metrics by name
+    @NonNull
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            if (sb.length() > 1)
+                sb.append(',');
+            sb.append('"').append(entry.getKey()).append("\":");
+            entry.getValue().appendJson(sb);
+        }
+        return sb.append('}').toString();
+    }
+
+    private <T extends Metric> T get(String name, Class<T> type, Function<String, Metric> factory) {
+        Metric metric = metrics.computeIfAbsent(name, factory);
+        if (!type.isInstance(metric))
+            throw new IllegalArgumentException(name + " is not a " + type.getSimpleName());
+        return type.cast(metric);
+    }
+
+    // NaN and infinity are not valid JSON numbers
+    private static String json(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ?
+                "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,85 @@
+package com.talybin.aircat.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// Minimal HTTP endpoint serving metrics snapshot on loopback interface
+// only, reachable with adb forward:
+//
+//   adb forward tcp:8765 tcp:8765
+//   curl localhost:8765/metrics        (text)
+//   curl localhost:8765/metrics.json   (JSON)
+public class MetricsServer {
+
+    public static final int DEFAULT_PORT = 8765;
+
+    private final Metrics metrics;
+    private final ServerSocket serverSocket;
+
+    public MetricsServer(Metrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        serverSocket = new ServerSocket(port, 4, InetAddress.getLoopbackAddress());
+
+        Thread thread = new Thread(this::serve, "MetricsServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void close() {
+        IoUtils.silentClose(serverSocket);
+    }
+
+    private void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(2000);
+                handle(socket);
+            }
+            catch (IOException ignored) {
+                // Closed or client gone
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        // Request line: GET <path> HTTP/1.x
+        String request = reader.readLine();
+        String[] parts = request != null ? request.split(" ") : new String[0];
+        String path = parts.length > 1 ? parts[1] : "";
+
+        String status = "200 OK";
+        String type = "text/plain";
+        String body;
+        if (path.equals("/metrics.json")) {
+            type = "application/json";
+            body = metrics.toJson();
+        }
+        else if (path.equals("/metrics") || path.equals("/"))
+            body = metrics.toText();
+        else {
+            status = "404 Not Found";
+            body = "not found\n";
+        }
+
+        byte[] data = body.getBytes(StandardCharsets.UTF_8);
+        OutputStream os = socket.getOutputStream();
+        os.write(("HTTP/1.0 " + status + "\r\n" +
+                "Content-Type: " + type + "; charset=utf-8\r\n" +
+                "Content-Length: " + data.length + "\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        os.write(data);
+        os.flush();
+    }
+}
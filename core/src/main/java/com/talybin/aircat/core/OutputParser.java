@@ -0,0 +1,650 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+// Parser of hashcat output produced with --machine-readable option.
+// Works on bytes in reusable buffers, status lines are parsed without
+// allocations. Recognizes three kinds of lines:
+//
+//  Status:   STATUS <state> SPEED <speed> <ms> ... EXEC_RUNTIME <ms> ...
+//            CURKU <n> PROGRESS <done> <total> RECHASH <done> <total>
+//            RECSALT <done> <total> TEMP <c> ... REJECTED <n> UTIL <pct> ...
+//  Status:   {"status": 3, "progress": [...], "devices": [...], ...}
+//            (with --status-json)
+//  Password: <ap mac>:<client mac>:<ssid>:<password>
+//            (mac addresses encoded without colons)
+public class OutputParser<T extends PmkidHash> {
+
+    private static final Logger log = Logger.getLogger("OutputParser");
+
+    // Devices beyond this are summed in speed but not reported one by one
+    public static final int MAX_DEVICES = 16;
+
+    // Status is reused between lines, copy what is needed (see snapshot())
+    public static class Status {
+        public int state = 0;
+
+        // Sum of all devices, hashes per second
+        public long speed = 0;
+
+        public long progress = 0;
+        public long progressTotal = 0;
+
+        // Words read from the feed (hashcat restore point)
+        public long curku = 0;
+
+        // Candidates rejected by hashcat, e.g. of wrong length
+        public long rejected = 0;
+
+        public long recoveredHashes = 0;
+        public long totalHashes = 0;
+        public long recoveredSalts = 0;
+        public long totalSalts = 0;
+
+        // Per device values, first nrDevices are valid. Utilization and
+        // temperature are -1 if not reported.
+        public int nrDevices = 0;
+        public final long[] deviceSpeed = new long[MAX_DEVICES];
+        public final double[] execRuntimeMs = new double[MAX_DEVICES];
+        public final int[] util = new int[MAX_DEVICES];
+        public final int[] temp = new int[MAX_DEVICES];
+
+        void reset() {
+            state = 0;
+            speed = 0;
+            progress = 0;
+            progressTotal = 0;
+            curku = 0;
+            rejected = 0;
+            recoveredHashes = 0;
+            totalHashes = 0;
+            recoveredSalts = 0;
+            totalSalts = 0;
+            nrDevices = 0;
+            Arrays.fill(deviceSpeed, 0);
+            Arrays.fill(execRuntimeMs, 0);
+            Arrays.fill(util, -1);
+            Arrays.fill(temp, -1);
+        }
+
+        // Immutable copy, allocates
+        @NonNull
+        public Telemetry snapshot() {
+            Telemetry.Device[] devices = new Telemetry.Device[nrDevices];
+            for (int i = 0; i < nrDevices; ++i)
+                devices[i] = new Telemetry.Device(deviceSpeed[i], execRuntimeMs[i], util[i], temp[i]);
+            return new Telemetry(curku, rejected, recoveredHashes, totalHashes,
+                    recoveredSalts, totalSalts, Arrays.asList(devices));
+        }
+
+        private void setDevices(int index) {
+            if (index < MAX_DEVICES && index >= nrDevices)
+                nrDevices = index + 1;
+        }
+    }
+
+    public interface Listener<T> {
+        void onStatus(Status status);
+        void onPassword(T job, String password);
+    }
+
+    // Longer lines are truncated
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    // Length of "<ap mac>:<client mac>:"
+    private static final int MAC_PREFIX_LENGTH = 26;
+
+    // Status keywords
+    private static final byte[] KEY_STATUS = "STATUS".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_SPEED = "SPEED".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_PROGRESS = "PROGRESS".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_EXEC_RUNTIME = "EXEC_RUNTIME".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CURKU = "CURKU".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_REJECTED = "REJECTED".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_RECHASH = "RECHASH".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_RECSALT = "RECSALT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_UTIL = "UTIL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_TEMP = "TEMP".getBytes(StandardCharsets.US_ASCII);
+
+    // Keys of --status-json
+    private static final byte[] JSON_STATUS = "status".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_PROGRESS = "progress".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_RESTORE_POINT = "restore_point".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_REJECTED = "rejected".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_RECHASH = "recovered_hashes".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_RECSALT = "recovered_salts".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_DEVICES = "devices".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_SPEED = "speed".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_UTIL = "util".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_TEMP = "temp".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int ID_OTHER = 0;
+    private static final int ID_STATUS = 1;
+    private static final int ID_SPEED = 2;
+    private static final int ID_PROGRESS = 3;
+    private static final int ID_EXEC_RUNTIME = 4;
+    private static final int ID_CURKU = 5;
+    private static final int ID_REJECTED = 6;
+    private static final int ID_RECHASH = 7;
+    private static final int ID_RECSALT = 8;
+    private static final int ID_UTIL = 9;
+    private static final int ID_TEMP = 10;
+    private static final int ID_DEVICES = 11;
+
+    // Job and its ssid as it appears in password line, decoded
+    private static class Entry<T extends PmkidHash> {
+        final T job;
+        final String ssid;
+
+        Entry(T job) {
+            this.job = job;
+            this.ssid = job.getSsid() != null ? job.getSsid() : "";
+        }
+    }
+
+    private final InputStream in;
+    private final Listener<T> listener;
+
+    private final byte[] buffer = new byte[16 * 1024];
+    private byte[] line = new byte[1024];
+    private int lineLength = 0;
+
+    private final Status status = new Status();
+
+    private long nrLines = 0;
+
+    // Other lines go here if set
+    private LogRing logRing = null;
+
+    // Jobs by "<ap mac>:<client mac>:" prefix of password line.
+    // Several jobs may share it with different ssid.
+    private final Map<String, List<Entry<T>>> jobIndex = new HashMap<>();
+
+    public OutputParser(InputStream in, List<T> jobs, Listener<T> listener) {
+        this.in = in;
+        this.listener = listener;
+
+        for (T job : jobs) {
+            String key = String.format("%s:%s:",
+                    job.getApMac().replace(":", ""),
+                    job.getClientMac().replace(":", "")).toLowerCase(Locale.ROOT);
+            jobIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(new Entry<>(job));
+        }
+    }
+
+    // Parse until end of stream
+    public void run() throws IOException {
+        for (int cnt; (cnt = in.read(buffer)) >= 0; ) {
+            int start = 0;
+            for (int i = 0; i < cnt; ++i) {
+                if (buffer[i] == '\n') {
+                    append(buffer, start, i - start);
+                    parseLine();
+                    start = i + 1;
+                }
+            }
+            append(buffer, start, cnt - start);
+        }
+        // Last line without newline
+        if (lineLength > 0)
+            parseLine();
+    }
+
+    // Keep lines other than status and passwords, hashcat prints
+    // warnings and session messages on stdout too
+    public void setLog(@Nullable LogRing log) {
+        this.logRing = log;
+    }
+
+    // Number of lines parsed so far, call from parsing thread
+    public long getNrLines() {
+        return nrLines;
+    }
+
+    private void append(byte[] data, int offset, int length) {
+        int newLength = Math.min(lineLength + length, MAX_LINE_LENGTH);
+        if (newLength > line.length) {
+            byte[] grown = new byte[Math.min(Math.max(newLength, line.length * 2), MAX_LINE_LENGTH)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+        int cnt = newLength - lineLength;
+        System.arraycopy(data, offset, line, lineLength, cnt);
+        lineLength = newLength;
+    }
+
+    private void parseLine() {
+        ++nrLines;
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == '\r')
+            --length;
+
+        if (startsWith(line, 0, length, KEY_STATUS))
+            parseStatus(length);
+        else if (length > 0 && line[0] == '{')
+            parseJsonStatus(length);
+        else if (length > MAC_PREFIX_LENGTH && line[12] == ':' && line[25] == ':')
+            parsePassword(length);
+        else if (logRing != null && length > 0)
+            logRing.add(LogRing.Source.STDOUT, line, 0, length);
+
+        lineLength = 0;
+    }
+
+    private void parseStatus(int length) {
+        status.reset();
+
+        int key = ID_OTHER;
+        // Index of the number after current key
+        int index = 0;
+
+        for (int pos = 0; pos < length; ) {
+            // Skip separators
+            while (pos < length && isSpace(line[pos]))
+                ++pos;
+            int start = pos;
+            while (pos < length && !isSpace(line[pos]))
+                ++pos;
+            if (start == pos)
+                break;
+
+            byte first = line[start];
+            if (first != '-' && (first < '0' || first > '9')) {
+                key = keyId(start, pos);
+                index = 0;
+                continue;
+            }
+
+            // Only runtime is fractional
+            if (key == ID_EXEC_RUNTIME) {
+                if (index < MAX_DEVICES) {
+                    status.execRuntimeMs[index] = parseDouble(start, pos);
+                    status.setDevices(index);
+                }
+                ++index;
+                continue;
+            }
+
+            long value = parseLong(start, pos);
+            switch (key) {
+                case ID_STATUS:
+                    if (index == 0)
+                        status.state = (int)value;
+                    break;
+
+                case ID_SPEED:
+                    // Pairs of speed and measure time per device
+                    if ((index & 1) == 0) {
+                        status.speed += value;
+                        int device = index / 2;
+                        if (device < MAX_DEVICES) {
+                            status.deviceSpeed[device] = value;
+                            status.setDevices(device);
+                        }
+                    }
+                    break;
+
+                case ID_PROGRESS:
+                    if (index == 0)
+                        status.progress = value;
+                    else if (index == 1)
+                        status.progressTotal = value;
+                    break;
+
+                case ID_CURKU:
+                    if (index == 0)
+                        status.curku = value;
+                    break;
+
+                case ID_REJECTED:
+                    if (index == 0)
+                        status.rejected = value;
+                    break;
+
+                case ID_RECHASH:
+                    if (index == 0)
+                        status.recoveredHashes = value;
+                    else if (index == 1)
+                        status.totalHashes = value;
+                    break;
+
+                case ID_RECSALT:
+                    if (index == 0)
+                        status.recoveredSalts = value;
+                    else if (index == 1)
+                        status.totalSalts = value;
+                    break;
+
+                case ID_UTIL:
+                    if (index < MAX_DEVICES) {
+                        status.util[index] = (int)value;
+                        status.setDevices(index);
+                    }
+                    break;
+
+                case ID_TEMP:
+                    if (index < MAX_DEVICES) {
+                        status.temp[index] = (int)value;
+                        status.setDevices(index);
+                    }
+                    break;
+            }
+            ++index;
+        }
+
+        listener.onStatus(status);
+    }
+
+    // Status line of --status-json. Not a general JSON parser: keys are
+    // matched by name at the expected nesting level, strings other than
+    // keys are skipped and numbers in arrays are counted by index.
+    private void parseJsonStatus(int length) {
+        status.reset();
+
+        int key = ID_OTHER;
+        // Index of the number in array of current key
+        int index = 0;
+        int depth = 0;
+        // Depth of devices array, 0 if outside
+        int devicesDepth = 0;
+        // Depth of array value of a top level key, 0 if outside
+        int arrayDepth = 0;
+        int device = -1;
+        boolean seenStatus = false;
+
+        for (int pos = 0; pos < length; ) {
+            byte b = line[pos];
+            if (b == '"') {
+                int start = ++pos;
+                while (pos < length && line[pos] != '"')
+                    pos += line[pos] == '\\' ? 2 : 1;
+                int end = Math.min(pos, length);
+                ++pos;
+
+                // Key if followed by colon
+                int next = pos;
+                while (next < length && isJsonSpace(line[next]))
+                    ++next;
+                if (next < length && line[next] == ':') {
+                    key = devicesDepth > 0 ? jsonDeviceKeyId(start, end) : jsonKeyId(start, end);
+                    index = 0;
+                    pos = next + 1;
+                }
+            }
+            else if (b == '{' || b == '[') {
+                ++depth;
+                if (b == '[' && key == ID_DEVICES && devicesDepth == 0)
+                    devicesDepth = depth;
+                else if (b == '[' && depth == 2)
+                    arrayDepth = depth;
+                else if (b == '{' && devicesDepth > 0 && depth == devicesDepth + 1)
+                    ++device;
+                ++pos;
+            }
+            else if (b == '}' || b == ']') {
+                if (depth == devicesDepth)
+                    devicesDepth = 0;
+                if (depth == arrayDepth)
+                    arrayDepth = 0;
+                --depth;
+                ++pos;
+            }
+            else if (b == '-' || (b >= '0' && b <= '9')) {
+                int start = pos;
+                while (pos < length && line[pos] != ',' && line[pos] != ']' &&
+                        line[pos] != '}' && !isJsonSpace(line[pos]))
+                    ++pos;
+                long value = parseLong(start, pos);
+
+                if (devicesDepth > 0) {
+                    if (depth == devicesDepth + 1 && device >= 0)
+                        setJsonDevice(key, device, value);
+                }
+                else if (depth == 1 || depth == arrayDepth) {
+                    seenStatus |= key == ID_STATUS;
+                    setJsonValue(key, index, value);
+                }
+                ++index;
+            }
+            else
+                ++pos;
+        }
+
+        // Some other JSON on stdout
+        if (!seenStatus) {
+            if (logRing != null)
+                logRing.add(LogRing.Source.STDOUT, line, 0, length);
+            return;
+        }
+        listener.onStatus(status);
+    }
+
+    private void setJsonValue(int key, int index, long value) {
+        switch (key) {
+            case ID_STATUS:
+                status.state = (int)value;
+                break;
+
+            case ID_PROGRESS:
+                if (index == 0)
+                    status.progress = value;
+                else if (index == 1)
+                    status.progressTotal = value;
+                break;
+
+            case ID_CURKU:
+                status.curku = value;
+                break;
+
+            case ID_REJECTED:
+                status.rejected = value;
+                break;
+
+            case ID_RECHASH:
+                if (index == 0)
+                    status.recoveredHashes = value;
+                else if (index == 1)
+                    status.totalHashes = value;
+                break;
+
+            case ID_RECSALT:
+                if (index == 0)
+                    status.recoveredSalts = value;
+                else if (index == 1)
+                    status.totalSalts = value;
+                break;
+        }
+    }
+
+    private void setJsonDevice(int key, int device, long value) {
+        switch (key) {
+            case ID_SPEED:
+                status.speed += value;
+                if (device < MAX_DEVICES)
+                    status.deviceSpeed[device] = value;
+                break;
+
+            case ID_UTIL:
+                if (device < MAX_DEVICES)
+                    status.util[device] = (int)value;
+                break;
+
+            case ID_TEMP:
+                if (device < MAX_DEVICES)
+                    status.temp[device] = (int)value;
+                break;
+
+            default:
+                return;
+        }
+        status.setDevices(device);
+    }
+
+    private void parsePassword(int length) {
+        // Password lines are rare, allocation is fine here
+        String key = new String(line, 0, MAC_PREFIX_LENGTH, StandardCharsets.US_ASCII)
+                .toLowerCase(Locale.ROOT);
+        List<Entry<T>> entries = jobIndex.get(key);
+        if (entries == null)
+            return;
+
+        // Ssid ends at the next colon, hashcat prints one containing
+        // a colon as $HEX[...]. The whole field is matched, a job whose
+        // ssid is a prefix of another one must not take its password.
+        int sep = MAC_PREFIX_LENGTH;
+        while (sep < length && line[sep] != ':')
+            ++sep;
+        if (sep == length)
+            return;
+        String ssid = decodeHex(new String(line, MAC_PREFIX_LENGTH,
+                sep - MAC_PREFIX_LENGTH, StandardCharsets.UTF_8));
+
+        for (Entry<T> entry : entries) {
+            if (entry.ssid.equals(ssid)) {
+                log.fine("cracked " + key + ssid);
+
+                String password = new String(line, sep + 1, length - sep - 1, StandardCharsets.UTF_8);
+                listener.onPassword(entry.job, decodeHex(password));
+                return;
+            }
+        }
+    }
+
+    private int keyId(int start, int end) {
+        if (equals(start, end, KEY_SPEED))
+            return ID_SPEED;
+        if (equals(start, end, KEY_PROGRESS))
+            return ID_PROGRESS;
+        if (equals(start, end, KEY_STATUS))
+            return ID_STATUS;
+        if (equals(start, end, KEY_EXEC_RUNTIME))
+            return ID_EXEC_RUNTIME;
+        if (equals(start, end, KEY_CURKU))
+            return ID_CURKU;
+        if (equals(start, end, KEY_REJECTED))
+            return ID_REJECTED;
+        if (equals(start, end, KEY_RECHASH))
+            return ID_RECHASH;
+        if (equals(start, end, KEY_RECSALT))
+            return ID_RECSALT;
+        if (equals(start, end, KEY_UTIL))
+            return ID_UTIL;
+        if (equals(start, end, KEY_TEMP))
+            return ID_TEMP;
+        return ID_OTHER;
+    }
+
+    private int jsonKeyId(int start, int end) {
+        if (equals(start, end, JSON_STATUS))
+            return ID_STATUS;
+        if (equals(start, end, JSON_PROGRESS))
+            return ID_PROGRESS;
+        if (equals(start, end, JSON_RESTORE_POINT))
+            return ID_CURKU;
+        if (equals(start, end, JSON_REJECTED))
+            return ID_REJECTED;
+        if (equals(start, end, JSON_RECHASH))
+            return ID_RECHASH;
+        if (equals(start, end, JSON_RECSALT))
+            return ID_RECSALT;
+        if (equals(start, end, JSON_DEVICES))
+            return ID_DEVICES;
+        return ID_OTHER;
+    }
+
+    private int jsonDeviceKeyId(int start, int end) {
+        if (equals(start, end, JSON_SPEED))
+            return ID_SPEED;
+        if (equals(start, end, JSON_UTIL))
+            return ID_UTIL;
+        if (equals(start, end, JSON_TEMP))
+            return ID_TEMP;
+        return ID_OTHER;
+    }
+
+    private boolean equals(int start, int end, byte[] key) {
+        return end - start == key.length && startsWith(line, start, end, key);
+    }
+
+    private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; ++i) {
+            if (data[start + i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private long parseLong(int start, int end) {
+        boolean negative = line[start] == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; ++i) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Digits after the point are kept up to microseconds
+    private double parseDouble(int start, int end) {
+        int point = start;
+        while (point < end && line[point] != '.')
+            ++point;
+        double value = parseLong(start, point);
+        long fraction = 0;
+        long scale = 1;
+        for (int i = point + 1; i < end && scale < 1_000_000; ++i) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            fraction = fraction * 10 + digit;
+            scale *= 10;
+        }
+        if (fraction == 0)
+            return value;
+        return line[start] == '-' ? value - (double)fraction / scale : value + (double)fraction / scale;
+    }
+
+    private static boolean isJsonSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    // Hashcat prints passwords with special characters as $HEX[...]
+    public static String decodeHex(String password) {
+        if (!password.startsWith("$HEX[") || !password.endsWith("]"))
+            return password;
+
+        String hex = password.substring(5, password.length() - 1);
+        if ((hex.length() & 1) != 0)
+            return password;
+
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            int hi = Character.digit(hex.charAt(i * 2), 16);
+            int lo = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (hi < 0 || lo < 0)
+                return password;
+            bytes[i] = (byte)((hi << 4) | lo);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+// PMKID captured from an access point, the unit hashcat works on.
+// Mac addresses are in xx:xx:xx:xx:xx:xx format.
+public interface PmkidHash {
+
+    @NonNull
+    String getPmkId();
+
+    // Null if hidden
+    @Nullable
+    String getSsid();
+
+    @NonNull
+    String getApMac();
+
+    @NonNull
+    String getClientMac();
+}
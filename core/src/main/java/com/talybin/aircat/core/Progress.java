@@ -0,0 +1,50 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+// Progress of hashcat run. Immutable, shared between threads.
+public class Progress {
+    // State of the job:
+    //  3 (running)
+    //  5 (exhausted)
+    //  6 (cracked)
+    //  7 (aborted)
+    //  8 (quit)
+    public final int state;
+
+    // Speed in hashes per second
+    public final int speed;
+
+    // Number of words processed so far
+    public final long nr_complete;
+
+    // Total number of words, 0 if unknown
+    public final long total;
+
+    // Full hashcat status, null if not available
+    @Nullable
+    public final Telemetry telemetry;
+
+    public Progress(int state, int speed, long nr_complete, long total) {
+        this(state, speed, nr_complete, total, null);
+    }
+
+    public Progress(int state, int speed, long nr_complete, long total, @Nullable Telemetry telemetry) {
+        this.state = state;
+        this.speed = speed;
+        this.nr_complete = nr_complete;
+        this.total = total;
+        this.telemetry = telemetry;
+    }
+
+    // For debug purpose
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "state: %d, speed: %d H/s, complete: %d/%d",
+                state, speed, nr_complete, total);
+    }
+}
@@ -0,0 +1,138 @@
+package com.talybin.aircat.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Delivers progress snapshots from hashcat thread to consumers on the
+// runner thread (UI thread on Android). Each consumer gets at most one update per its interval,
+// intermediate snapshots are dropped so a slow consumer always gets the
+// latest one.
+public class ProgressDispatcher<T> {
+
+    public interface Consumer<T> {
+        void onProgress(List<T> jobs, Progress progress);
+    }
+
+    // Immutable snapshot
+    private static class Update<T> {
+        final List<T> jobs;
+        final Progress progress;
+
+        Update(List<T> jobs, Progress progress) {
+            this.jobs = jobs;
+            this.progress = progress;
+        }
+    }
+
+    private class Channel implements Runnable {
+        final Consumer<T> consumer;
+        final long intervalMs;
+
+        // Used on runner thread only
+        long lastDelivery = 0;
+        boolean scheduled = false;
+        Update<T> delivered = null;
+
+        long nrDelivered = 0;
+
+        Channel(Consumer<T> consumer, long intervalMs) {
+            this.consumer = consumer;
+            this.intervalMs = intervalMs;
+        }
+
+        // Deliver now or schedule for the end of interval
+        void request() {
+            if (scheduled)
+                return;
+
+            long wait = lastDelivery + intervalMs - runner.uptimeMillis();
+            if (wait <= 0)
+                run();
+            else {
+                scheduled = true;
+                runner.postDelayed(this, wait);
+            }
+        }
+
+        void cancel() {
+            runner.remove(this);
+            scheduled = false;
+            delivered = null;
+        }
+
+        @Override
+        public void run() {
+            scheduled = false;
+
+            Update<T> update = latest.get();
+            if (update == null || update == delivered)
+                return;
+
+            delivered = update;
+            lastDelivery = runner.uptimeMillis();
+            ++nrDelivered;
+            consumer.onProgress(update.jobs, update.progress);
+        }
+    }
+
+    private final TaskRunner runner;
+    private final List<Channel> channels = new ArrayList<>();
+
+    private final AtomicReference<Update<T>> latest = new AtomicReference<>();
+    private final AtomicBoolean dispatchPosted = new AtomicBoolean(false);
+    private final Runnable dispatchTask = this::dispatch;
+
+    private final AtomicLong nrPublished = new AtomicLong();
+
+    public ProgressDispatcher(TaskRunner runner) {
+        this.runner = runner;
+    }
+
+    // Add consumer getting at most one update per interval.
+    // Should be called before publishing.
+    public ProgressDispatcher<T> addConsumer(Consumer<T> consumer, long intervalMs) {
+        channels.add(new Channel(consumer, intervalMs));
+        return this;
+    }
+
+    // Called from any thread
+    public void publish(List<T> jobs, Progress progress) {
+        nrPublished.incrementAndGet();
+        latest.set(new Update<>(Collections.unmodifiableList(new ArrayList<>(jobs)), progress));
+
+        // One dispatch is enough for any number of updates
+        if (dispatchPosted.compareAndSet(false, true))
+            runner.post(dispatchTask);
+    }
+
+    // Drop pending updates. Must be called on runner thread.
+    public void cancel() {
+        latest.set(null);
+        runner.remove(dispatchTask);
+        dispatchPosted.set(false);
+        channels.forEach(Channel::cancel);
+    }
+
+    public long getNrPublished() {
+        return nrPublished.get();
+    }
+
+    // Number of updates delivered to all consumers.
+    // Must be called on runner thread.
+    public long getNrDelivered() {
+        long cnt = 0;
+        for (Channel channel : channels)
+            cnt += channel.nrDelivered;
+        return cnt;
+    }
+
+    private void dispatch() {
+        dispatchPosted.set(false);
+        for (Channel channel : channels)
+            channel.request();
+    }
+}
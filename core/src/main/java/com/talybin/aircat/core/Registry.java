@@ -0,0 +1,252 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+// Set of items unique by primary key with optional secondary indexes.
+// Writes are serialized, reads never block: lookups go to concurrent maps
+// and the item list is an immutable snapshot rebuilt after changes.
+// Listeners are called on the writing thread after each change.
+public class Registry<K, T> {
+
+    public enum Change { ADDED, REMOVED, UPDATED }
+
+    public static class Event<T> {
+        public final Change change;
+        // Items affected by the change
+        public final List<T> items;
+        // All items after the change
+        public final List<T> snapshot;
+
+        Event(Change change, List<T> items, List<T> snapshot) {
+            this.change = change;
+            this.items = items;
+            this.snapshot = snapshot;
+        }
+    }
+
+    public interface Listener<T> {
+        void onChange(Event<T> event);
+    }
+
+    // Items grouped by a secondary key. Key may change, see update().
+    public class Index<I> {
+        private final Function<T, I> keyOf;
+        // Lists are immutable, replaced on change
+        private final Map<I, List<T>> items = new ConcurrentHashMap<>();
+        // Secondary key each item is indexed by, guarded by registry
+        private final Map<K, I> indexedAs = new HashMap<>();
+
+        private Index(Function<T, I> keyOf) {
+            this.keyOf = keyOf;
+        }
+
+        @NonNull
+        public List<T> get(I key) {
+            List<T> ret = key != null ? items.get(key) : null;
+            return ret != null ? ret : Collections.emptyList();
+        }
+
+        // Each bucket is copied once per batch
+        private void add(Map<K, T> batch) {
+            Map<I, List<T>> grouped = new HashMap<>();
+            batch.forEach((primary, item) -> {
+                I key = keyOf.apply(item);
+                indexedAs.put(primary, key);
+                if (key != null)
+                    grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+            });
+            grouped.forEach((key, added) -> items.compute(key, (k, list) -> {
+                List<T> ret = list != null ? new ArrayList<>(list) : new ArrayList<>(added.size());
+                ret.addAll(added);
+                return Collections.unmodifiableList(ret);
+            }));
+        }
+
+        private void remove(Map<K, T> batch) {
+            Map<I, Set<T>> grouped = new HashMap<>();
+            batch.forEach((primary, item) -> {
+                I key = indexedAs.remove(primary);
+                if (key != null)
+                    grouped.computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(item);
+            });
+            // Null removes the mapping
+            grouped.forEach((key, removed) -> items.computeIfPresent(key, (k, list) -> {
+                List<T> ret = new ArrayList<>(list.size());
+                for (T item : list) {
+                    if (!removed.contains(item))
+                        ret.add(item);
+                }
+                return ret.isEmpty() ? null : Collections.unmodifiableList(ret);
+            }));
+        }
+
+        private void clear() {
+            items.clear();
+            indexedAs.clear();
+        }
+    }
+
+    private final Function<T, K> primaryKeyOf;
+
+    private final Map<K, T> byKey = new ConcurrentHashMap<>();
+    // Insertion order, guarded by this
+    private final Map<K, T> ordered = new LinkedHashMap<>();
+    private final List<Index<?>> indexes = new ArrayList<>();
+
+    // Null after change until requested
+    private volatile List<T> snapshot = Collections.emptyList();
+
+    private final List<Listener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    public Registry(Function<T, K> primaryKeyOf) {
+        this.primaryKeyOf = primaryKeyOf;
+    }
+
+    // Add index by given key, should be called before any items added
+    public synchronized <I> Index<I> addIndex(Function<T, I> keyOf) {
+        Index<I> index = new Index<>(keyOf);
+        indexes.add(index);
+        return index;
+    }
+
+    public void addListener(Listener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    public void removeListeners() {
+        listeners.clear();
+    }
+
+    @Nullable
+    public T get(K key) {
+        return byKey.get(key);
+    }
+
+    public boolean contains(K key) {
+        return byKey.containsKey(key);
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    // Immutable list of all items in order added
+    @NonNull
+    public List<T> getAll() {
+        List<T> ret = snapshot;
+        if (ret == null) {
+            synchronized (this) {
+                if ((ret = snapshot) == null)
+                    snapshot = ret = Collections.unmodifiableList(new ArrayList<>(ordered.values()));
+            }
+        }
+        return ret;
+    }
+
+    // Return false if item with the same key exists
+    public boolean add(T item) {
+        return !addAll(Collections.singletonList(item)).isEmpty();
+    }
+
+    // Add items not already present, return added ones
+    @NonNull
+    public List<T> addAll(Collection<T> items) {
+        Map<K, T> added = new LinkedHashMap<>();
+        synchronized (this) {
+            for (T item : items) {
+                K key = primaryKeyOf.apply(item);
+                if (byKey.containsKey(key) || added.containsKey(key))
+                    continue;
+                ordered.put(key, item);
+                byKey.put(key, item);
+                added.put(key, item);
+            }
+            if (!added.isEmpty()) {
+                indexes.forEach(index -> index.add(added));
+                snapshot = null;
+            }
+        }
+        List<T> ret = new ArrayList<>(added.values());
+        notify(Change.ADDED, ret);
+        return ret;
+    }
+
+    public boolean remove(T item) {
+        return !removeAll(Collections.singletonList(item)).isEmpty();
+    }
+
+    // Return removed items
+    @NonNull
+    public List<T> removeAll(Collection<T> items) {
+        Map<K, T> removed = new LinkedHashMap<>();
+        synchronized (this) {
+            for (T item : items) {
+                K key = primaryKeyOf.apply(item);
+                T present = ordered.remove(key);
+                if (present == null)
+                    continue;
+                byKey.remove(key);
+                removed.put(key, present);
+            }
+            if (!removed.isEmpty()) {
+                indexes.forEach(index -> index.remove(removed));
+                snapshot = null;
+            }
+        }
+        List<T> ret = new ArrayList<>(removed.values());
+        notify(Change.REMOVED, ret);
+        return ret;
+    }
+
+    // Replace all items, listeners get one ADDED event
+    public void reset(Collection<T> items) {
+        synchronized (this) {
+            ordered.clear();
+            byKey.clear();
+            indexes.forEach(Index::clear);
+            snapshot = Collections.emptyList();
+        }
+        addAll(items);
+    }
+
+    // Item has changed, secondary keys are re-read
+    public void update(T item) {
+        K key = primaryKeyOf.apply(item);
+        synchronized (this) {
+            if (byKey.get(key) != item)
+                return;
+            Map<K, T> batch = Collections.singletonMap(key, item);
+            for (Index<?> index : indexes) {
+                index.remove(batch);
+                index.add(batch);
+            }
+        }
+        notify(Change.UPDATED, Collections.singletonList(item));
+    }
+
+    private void notify(Change change, List<T> items) {
+        if (items.isEmpty() || listeners.isEmpty())
+            return;
+        Event<T> event = new Event<>(change, Collections.unmodifiableList(items), getAll());
+        for (Listener<T> listener : listeners)
+            listener.onChange(event);
+    }
+}
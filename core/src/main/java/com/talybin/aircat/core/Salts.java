@@ -0,0 +1,40 @@
+package com.talybin.aircat.core;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+// Hashcat counts progress in words times salts. The salt of a PMKID is
+// the ssid of the network, jobs of the same network are tried at once
+// and count as one.
+public class Salts {
+
+    private final int nrSalts;
+
+    public Salts(Collection<? extends PmkidHash> hashes) {
+        // Division by zero otherwise, hashcat would not run anyway
+        this.nrSalts = Math.max(1, count(hashes));
+    }
+
+    // Number of distinct ssid, hidden ones share the empty one
+    public static int count(Collection<? extends PmkidHash> hashes) {
+        Set<String> ssids = new HashSet<>();
+        for (PmkidHash hash : hashes)
+            ssids.add(hash.getSsid() != null ? hash.getSsid() : "");
+        return ssids.size();
+    }
+
+    public int size() {
+        return nrSalts;
+    }
+
+    // Words of the list hashcat progress stands for
+    public long toWords(long progress) {
+        return progress / nrSalts;
+    }
+
+    // Hashcat progress of the given number of words
+    public long toProgress(long words) {
+        return words * nrSalts;
+    }
+}
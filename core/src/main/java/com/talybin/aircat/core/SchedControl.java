@@ -0,0 +1,109 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Scheduling of hashcat processes after they have started: nice level or
+// idle class of every thread, and leaving the cpuset Android puts
+// background apps in (usually little cores only). Done by a shell script
+// run as root, since lowering nice or leaving SCHED_IDLE needs it.
+public class SchedControl {
+
+    // Policy of all threads of a process. Immutable.
+    public static class Policy {
+        // SCHED_IDLE, runs only when cores have nothing else to do
+        public static final int IDLE = Integer.MAX_VALUE;
+
+        // Nice level -20 to 19, or IDLE
+        public final int nice;
+
+        // Move to the root cpuset so affinity set by taskset is not
+        // narrowed by the cpuset of the app
+        public final boolean leaveCpuset;
+
+        public Policy(int nice, boolean leaveCpuset) {
+            this.nice = nice == IDLE ? IDLE : Math.max(-20, Math.min(19, nice));
+            this.leaveCpuset = leaveCpuset;
+        }
+
+        // Nice level or "idle", null or invalid gives nice 0
+        public static Policy parse(String value, boolean leaveCpuset) {
+            if ("idle".equals(value))
+                return new Policy(IDLE, leaveCpuset);
+            try {
+                return new Policy(Integer.parseInt(value), leaveCpuset);
+            }
+            catch (NumberFormatException e) {
+                return new Policy(0, leaveCpuset);
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return (nice == IDLE ? "idle" : "nice " + nice) + (leaveCpuset ? ", root cpuset" : "");
+        }
+    }
+
+    // Pids of running processes of the parent with given name (comm).
+    // Root is "/proc" on a device.
+    @NonNull
+    public static List<Integer> findChildren(File procRoot, int parentPid, String name) {
+        String[] entries = procRoot.list();
+        if (entries == null)
+            return Collections.emptyList();
+
+        List<Integer> ret = new ArrayList<>();
+        for (String entry : entries) {
+            if (entry.isEmpty() || !Character.isDigit(entry.charAt(0)))
+                continue;
+            try {
+                String stat = new String(Files.readAllBytes(new File(procRoot, entry + "/stat").toPath()),
+                        StandardCharsets.US_ASCII);
+                // pid (comm) state ppid ..., comm may contain spaces
+                int open = stat.indexOf('(');
+                int close = stat.lastIndexOf(')');
+                if (open < 0 || close < open)
+                    continue;
+                String[] rest = stat.substring(close + 2).split(" ");
+                if (rest.length > 1 && Integer.parseInt(rest[1]) == parentPid &&
+                        name.equals(stat.substring(open + 1, close)))
+                    ret.add(Integer.parseInt(entry));
+            }
+            catch (Exception e) {
+                // Gone meanwhile or not readable
+            }
+        }
+        return ret;
+    }
+
+    // Shell script applying the policy to every thread of the processes.
+    // Nice is relative in toybox renice, so the change from the current
+    // level is computed per thread.
+    @NonNull
+    public static String script(List<Integer> pids, Policy policy) {
+        StringBuilder sb = new StringBuilder();
+        for (int pid : pids) {
+            sb.append(String.format(Locale.ROOT, "for t in /proc/%d/task/*; do t=${t##*/}; ", pid));
+            if (policy.leaveCpuset)
+                sb.append("echo $t > /dev/cpuset/tasks; ");
+            if (policy.nice == Policy.IDLE)
+                sb.append("chrt -i -p 0 $t; ");
+            else {
+                sb.append("chrt -o -p 0 $t; ");
+                sb.append(String.format(Locale.ROOT,
+                        "n=$(cut -d')' -f2 /proc/%d/task/$t/stat | cut -d' ' -f18); " +
+                        "renice -n $((%d - n)) -p $t; ", pid, policy.nice));
+            }
+            sb.append("done >/dev/null 2>&1\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package com.talybin.aircat.core;
+
+// Read-only view of user preferences
+public interface Settings {
+
+    String getString(String key, String defValue);
+
+    boolean getBoolean(String key, boolean defValue);
+}
@@ -0,0 +1,122 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Splits a word list into contiguous ranges, one per hashcat worker.
+// Each worker gets a set of CPU cores and a range sized by the capacity
+// of those cores, so that all workers finish at about the same time.
+public class ShardPlanner {
+
+    // One worker per CPU cluster
+    public static final int PER_CLUSTER = 0;
+
+    // Not worth a process per less words
+    static final long MIN_WORDS_PER_SHARD = 100_000;
+
+    public static class Shard {
+        public final int index;
+
+        // First word, relative to resume position
+        public final long start;
+
+        // Number of words, 0 for the rest of the list
+        public final long count;
+
+        // Cores to run on, empty for any
+        public final List<Integer> cpus;
+
+        Shard(int index, long start, long count, List<Integer> cpus) {
+            this.index = index;
+            this.start = start;
+            this.count = count;
+            this.cpus = Collections.unmodifiableList(cpus);
+        }
+
+        // For debug purpose
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "#%d: %d+%s cpus %s",
+                    index, start, count > 0 ? String.valueOf(count) : "rest", cpus);
+        }
+    }
+
+    // Plan workers for nrWords (0 or less if unknown) words left.
+    // nrWorkers 1 disables sharding, PER_CLUSTER gives a worker to each
+    // cluster, more splits all cores into that many groups.
+    @NonNull
+    public static List<Shard> plan(long nrWords, CpuTopology topology, int nrWorkers) {
+        List<List<Integer>> groups = nrWorkers == PER_CLUSTER ?
+                clusterGroups(topology) : splitCpus(topology, nrWorkers);
+
+        if (groups.size() < 2 || nrWords < MIN_WORDS_PER_SHARD * groups.size())
+            return Collections.singletonList(new Shard(0, 0, 0, Collections.emptyList()));
+
+        long[] capacity = new long[groups.size()];
+        long totalCapacity = 0;
+        for (int i = 0; i < groups.size(); ++i) {
+            capacity[i] = capacityOf(topology, groups.get(i));
+            totalCapacity += capacity[i];
+        }
+
+        List<Shard> shards = new ArrayList<>(groups.size());
+        long start = 0;
+        for (int i = 0; i < groups.size(); ++i) {
+            boolean last = i == groups.size() - 1;
+            // Last one takes the rest, word count may be an estimate
+            long count = last ? 0 : Math.max(1, (long)((double)nrWords * capacity[i] / totalCapacity));
+            shards.add(new Shard(i, start, count, groups.get(i)));
+            start += count;
+        }
+        return shards;
+    }
+
+    private static List<List<Integer>> clusterGroups(CpuTopology topology) {
+        List<List<Integer>> groups = new ArrayList<>();
+        for (CpuTopology.Cluster cluster : topology.clusters)
+            groups.add(cluster.cpus);
+        return groups;
+    }
+
+    // Contiguous groups of about the same number of cores. Without
+    // known cores groups are empty, any core is fine.
+    private static List<List<Integer>> splitCpus(CpuTopology topology, int nrGroups) {
+        List<Integer> cpus = new ArrayList<>();
+        for (CpuTopology.Cluster cluster : topology.clusters)
+            cpus.addAll(cluster.cpus);
+
+        List<List<Integer>> groups = new ArrayList<>();
+        if (cpus.isEmpty()) {
+            for (int i = 0; i < nrGroups; ++i)
+                groups.add(Collections.emptyList());
+            return groups;
+        }
+
+        nrGroups = Math.min(nrGroups, cpus.size());
+        for (int i = 0; i < nrGroups; ++i) {
+            int from = cpus.size() * i / nrGroups;
+            int to = cpus.size() * (i + 1) / nrGroups;
+            groups.add(new ArrayList<>(cpus.subList(from, to)));
+        }
+        return groups;
+    }
+
+    // Sum of max frequencies, equal for all if cores unknown
+    private static long capacityOf(CpuTopology topology, List<Integer> cpus) {
+        if (cpus.isEmpty())
+            return 1;
+        long sum = 0;
+        for (CpuTopology.Cluster cluster : topology.clusters) {
+            for (int cpu : cpus) {
+                if (cluster.cpus.contains(cpu))
+                    sum += Math.max(1, cluster.maxFreq);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,100 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Reads a process stream to the end line by line into the log, so the
+// process never blocks on a full pipe. Fatal lines are reported as soon
+// as they are read.
+public class StreamDrain implements Runnable {
+
+    public interface FatalListener {
+        void onFatal(String line);
+    }
+
+    private final InputStream stream;
+    private final LogRing log;
+    private final LogRing.Source source;
+    private final FatalListener fatalListener;
+
+    // Bytes after MAX_LINE_LENGTH are dropped
+    private final byte[] line = new byte[LogRing.MAX_LINE_LENGTH];
+    private int lineLength = 0;
+
+    private volatile long nrLines = 0;
+    private volatile long nrErrors = 0;
+    private volatile long nrFatal = 0;
+    private volatile String lastError = null;
+
+    public StreamDrain(InputStream stream, LogRing log, LogRing.Source source,
+                       @Nullable FatalListener fatalListener)
+    {
+        this.stream = stream;
+        this.log = log;
+        this.source = source;
+        this.fatalListener = fatalListener;
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[8 * 1024];
+        try {
+            for (int cnt; (cnt = stream.read(buffer)) >= 0; ) {
+                for (int i = 0; i < cnt; ++i) {
+                    byte b = buffer[i];
+                    if (b == '\n')
+                        endLine();
+                    else if (lineLength < line.length)
+                        line[lineLength++] = b;
+                }
+            }
+            endLine();
+        }
+        catch (IOException ignored) {
+            // Closed on stop
+        }
+        finally {
+            IoUtils.silentClose(stream);
+        }
+    }
+
+    private void endLine() {
+        int length = lineLength;
+        lineLength = 0;
+        if (length > 0 && line[length - 1] == '\r')
+            --length;
+        if (length == 0)
+            return;
+
+        ++nrLines;
+        LogRing.Severity severity = log.add(source, line, 0, length);
+        if (severity.compareTo(LogRing.Severity.ERROR) >= 0) {
+            ++nrErrors;
+            lastError = new String(line, 0, length, StandardCharsets.UTF_8);
+            // First fatal line only, the rest usually follows from it
+            if (severity == LogRing.Severity.FATAL && nrFatal++ == 0 && fatalListener != null)
+                fatalListener.onFatal(lastError);
+        }
+    }
+
+    public long getNrLines() {
+        return nrLines;
+    }
+
+    // Lines of ERROR or FATAL severity
+    public long getNrErrors() {
+        return nrErrors;
+    }
+
+    public long getNrFatal() {
+        return nrFatal;
+    }
+
+    @Nullable
+    public String getLastError() {
+        return lastError;
+    }
+}
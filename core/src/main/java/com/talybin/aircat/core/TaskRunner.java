@@ -0,0 +1,16 @@
+package com.talybin.aircat.core;
+
+// Runs tasks on a single thread, the UI thread on Android.
+// Lets core classes post results without depending on android.os.Handler.
+public interface TaskRunner {
+
+    void post(Runnable task);
+
+    void postDelayed(Runnable task, long delayMs);
+
+    // Remove pending posts of the task
+    void remove(Runnable task);
+
+    // Monotonic clock used for delays, milliseconds
+    long uptimeMillis();
+}
@@ -0,0 +1,133 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Hashcat status beyond progress: per device speed, kernel runtime,
+// utilization and temperature, rejected candidates and recovered hashes.
+// Immutable, shared between threads.
+//
+// Low utilization with low temperature points to feed starvation, high
+// temperature with falling speed to thermal throttling, and a high
+// rejected ratio to a word list of unusable candidates.
+public class Telemetry {
+
+    public static class Device {
+        // Hashes per second
+        public final long speed;
+
+        // Mean kernel execution time, milliseconds
+        public final double execRuntimeMs;
+
+        // Percent, -1 if not reported
+        public final int util;
+
+        // Celsius, -1 if not reported (hwmon disabled or unsupported)
+        public final int temp;
+
+        public Device(long speed, double execRuntimeMs, int util, int temp) {
+            this.speed = speed;
+            this.execRuntimeMs = execRuntimeMs;
+            this.util = util;
+            this.temp = temp;
+        }
+    }
+
+    // Words read from the feed
+    public final long curku;
+
+    // Candidates hashcat rejected, e.g. of wrong length
+    public final long rejected;
+
+    public final long recoveredHashes;
+    public final long totalHashes;
+    public final long recoveredSalts;
+    public final long totalSalts;
+
+    public final List<Device> devices;
+
+    public Telemetry(long curku, long rejected,
+                     long recoveredHashes, long totalHashes,
+                     long recoveredSalts, long totalSalts,
+                     List<Device> devices)
+    {
+        this.curku = curku;
+        this.rejected = rejected;
+        this.recoveredHashes = recoveredHashes;
+        this.totalHashes = totalHashes;
+        this.recoveredSalts = recoveredSalts;
+        this.totalSalts = totalSalts;
+        this.devices = Collections.unmodifiableList(devices);
+    }
+
+    // Telemetry of several hashcat processes running parts of the same
+    // group as one. Counts are summed, devices listed one after another.
+    // List should not be empty.
+    @NonNull
+    public static Telemetry merge(List<Telemetry> parts) {
+        if (parts.size() == 1)
+            return parts.get(0);
+
+        long curku = 0, rejected = 0, recoveredHashes = 0, recoveredSalts = 0;
+        long totalHashes = 0, totalSalts = 0;
+        List<Device> devices = new ArrayList<>();
+        for (Telemetry part : parts) {
+            curku += part.curku;
+            rejected += part.rejected;
+            recoveredHashes += part.recoveredHashes;
+            recoveredSalts += part.recoveredSalts;
+            // All processes have the same hashes
+            totalHashes = Math.max(totalHashes, part.totalHashes);
+            totalSalts = Math.max(totalSalts, part.totalSalts);
+            devices.addAll(part.devices);
+        }
+        return new Telemetry(curku, rejected, recoveredHashes, totalHashes,
+                recoveredSalts, totalSalts, devices);
+    }
+
+    // Highest temperature of all devices, -1 if none reported
+    public int getMaxTemp() {
+        int max = -1;
+        for (Device device : devices)
+            max = Math.max(max, device.temp);
+        return max;
+    }
+
+    // Mean utilization of devices reporting it, -1 if none
+    public int getMeanUtil() {
+        int sum = 0;
+        int cnt = 0;
+        for (Device device : devices) {
+            if (device.util >= 0) {
+                sum += device.util;
+                ++cnt;
+            }
+        }
+        return cnt > 0 ? sum / cnt : -1;
+    }
+
+    // Part of words read that hashcat rejected, 0 if nothing read
+    public double getRejectedRatio() {
+        return curku > 0 ? (double)rejected / curku : 0;
+    }
+
+    // For debug purpose
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "curku: %d, rejected: %d, hashes: %d/%d, salts: %d/%d",
+                curku, rejected, recoveredHashes, totalHashes, recoveredSalts, totalSalts));
+        for (int i = 0; i < devices.size(); ++i) {
+            Device device = devices.get(i);
+            sb.append(String.format(Locale.ROOT,
+                    ", #%d: %d H/s %.2f ms util %d%% temp %dc",
+                    i + 1, device.speed, device.execRuntimeMs, device.util, device.temp));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Recent progress samples with time, oldest are overwritten.
+// Tells how speed, utilization and temperature changed during a run.
+// All methods are thread safe.
+public class TelemetryHistory {
+
+    public static final int DEFAULT_CAPACITY = 200;
+
+    public static class Sample {
+        // Milliseconds since start of the run
+        public final long time;
+        public final Progress progress;
+
+        Sample(long time, Progress progress) {
+            this.time = time;
+            this.progress = progress;
+        }
+    }
+
+    private final Sample[] samples;
+    private int next = 0;
+    private int count = 0;
+
+    private long startNanos = System.nanoTime();
+
+    public TelemetryHistory(int capacity) {
+        samples = new Sample[capacity];
+    }
+
+    // Forget samples of previous run
+    public synchronized void start() {
+        next = 0;
+        count = 0;
+        startNanos = System.nanoTime();
+        Arrays.fill(samples, null);
+    }
+
+    public synchronized void add(Progress progress) {
+        samples[next] = new Sample((System.nanoTime() - startNanos) / 1_000_000, progress);
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    // Oldest first
+    @NonNull
+    public synchronized List<Sample> getSamples() {
+        List<Sample> ret = new ArrayList<>(count);
+        int first = (next - count + samples.length) % samples.length;
+        for (int i = 0; i < count; ++i)
+            ret.add(samples[(first + i) % samples.length]);
+        return ret;
+    }
+
+    // One sample per line: time, speed, rejected and per device
+    // utilization and temperature. Empty if no samples.
+    @NonNull
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (Sample sample : getSamples()) {
+            Progress progress = sample.progress;
+            sb.append(String.format(Locale.ROOT, "%7.1fs %10d H/s", sample.time / 1000.0, progress.speed));
+
+            Telemetry telemetry = progress.telemetry;
+            if (telemetry != null) {
+                sb.append(String.format(Locale.ROOT, " rej %d", telemetry.rejected));
+                for (Telemetry.Device device : telemetry.devices)
+                    sb.append(String.format(Locale.ROOT, " | %d%% %dc", device.util, device.temp));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
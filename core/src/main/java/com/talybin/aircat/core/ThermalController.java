@@ -0,0 +1,167 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+// Holds the SoC temperature in a band by moving hashcat between workload
+// levels (-w 1 to the chosen maximum) and pausing it. A slightly lower
+// steady level gives more than running flat out into hard throttling.
+//
+//  above high      one level down (pause from level 1), after dwell time
+//  below low       one level up or resume, after dwell time
+//  above critical  pause at once
+//
+// Battery too hot, or low and not charging, pauses at once too, resuming
+// with some hysteresis. Mean speed is kept per level. Time is passed in
+// by the caller, so the controller can be driven by a simulation.
+public class ThermalController {
+
+    public static final int PAUSED = 0;
+
+    public static class Config {
+        // Band of SoC temperature, Celsius
+        public final double low;
+        public final double high;
+
+        // Pause at once at this SoC temperature
+        public final double critical;
+
+        // Pause above this battery temperature
+        public final double batteryMax;
+
+        // Pause below this percent of battery while not charging
+        public final int minCapacity;
+
+        // Shortest time between level changes, lets temperature follow
+        public final long dwellMs;
+
+        public Config(double low, double high, double critical,
+                      double batteryMax, int minCapacity, long dwellMs)
+        {
+            this.low = low;
+            this.high = high;
+            this.critical = critical;
+            this.batteryMax = batteryMax;
+            this.minCapacity = minCapacity;
+            this.dwellMs = dwellMs;
+        }
+
+        // Band of 5 degrees below target, pause 8 degrees above it
+        public static Config forTarget(double target) {
+            return new Config(target - 5, target, target + 8, 42, 15, 60_000);
+        }
+    }
+
+    // Battery must be this much better before resuming
+    public static final double BATTERY_TEMP_HYSTERESIS = 2;
+    static final int CAPACITY_HYSTERESIS = 5;
+
+    // Highest workload level
+    static final int MAX_LEVEL = 4;
+
+    private final Config config;
+
+    private int maxLevel;
+    private int level;
+
+    private long lastChange;
+    private long lastUpdate;
+
+    // Paused for battery rather than temperature
+    private boolean batteryPause = false;
+
+    // Per level, index is level
+    private final long[] speedSum = new long[MAX_LEVEL + 1];
+    private final long[] nrSpeeds = new long[MAX_LEVEL + 1];
+    private final long[] timeMs = new long[MAX_LEVEL + 1];
+
+    public ThermalController(Config config, int maxLevel, long nowMs) {
+        this.config = config;
+        this.maxLevel = clamp(maxLevel);
+        this.level = this.maxLevel;
+        this.lastChange = nowMs;
+        this.lastUpdate = nowMs;
+    }
+
+    public synchronized int getLevel() {
+        return level;
+    }
+
+    // Battery is the reason of pause, nothing to wait for but charging
+    public synchronized boolean isBatteryPause() {
+        return level == PAUSED && batteryPause;
+    }
+
+    // Workload chosen for the next run, current level is kept under it
+    public synchronized void setMaxLevel(int maxLevel) {
+        this.maxLevel = clamp(maxLevel);
+        if (level > this.maxLevel)
+            level = this.maxLevel;
+    }
+
+    // Return the level to run at from now on
+    public synchronized int update(ThermalSensors.Sample sample, long nowMs) {
+        timeMs[level] += Math.max(0, nowMs - lastUpdate);
+        lastUpdate = nowMs;
+
+        boolean paused = level == PAUSED;
+        boolean batteryHot = !Double.isNaN(sample.batteryTemp) && sample.batteryTemp >
+                (paused ? config.batteryMax - BATTERY_TEMP_HYSTERESIS : config.batteryMax);
+        boolean batteryLow = !sample.charging && sample.batteryCapacity >= 0 &&
+                sample.batteryCapacity < (paused ? config.minCapacity + CAPACITY_HYSTERESIS : config.minCapacity);
+        boolean critical = sample.socTemp >= config.critical;
+
+        batteryPause = batteryHot || batteryLow;
+        if (batteryPause || critical)
+            return change(PAUSED, nowMs);
+
+        // Unknown temperature keeps current level
+        if (Double.isNaN(sample.socTemp) || nowMs - lastChange < config.dwellMs)
+            return level;
+
+        if (sample.socTemp > config.high)
+            return change(Math.max(PAUSED, level - 1), nowMs);
+        if (sample.socTemp < config.low)
+            return change(Math.min(maxLevel, level + 1), nowMs);
+        return level;
+    }
+
+    // Speed measured at current level
+    public synchronized void recordSpeed(long speed) {
+        if (level != PAUSED) {
+            speedSum[level] += speed;
+            ++nrSpeeds[level];
+        }
+    }
+
+    // Mean hashes per second at level, 0 if never measured
+    public synchronized long getMeanSpeed(int level) {
+        return nrSpeeds[level] > 0 ? speedSum[level] / nrSpeeds[level] : 0;
+    }
+
+    // Time spent and mean speed per level
+    @NonNull
+    public synchronized String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = MAX_LEVEL; i >= PAUSED; --i) {
+            if (timeMs[i] == 0 && nrSpeeds[i] == 0)
+                continue;
+            sb.append(String.format(Locale.ROOT, "%-7s %8d s %12d H/s%n",
+                    i == PAUSED ? "paused" : "-w " + i, timeMs[i] / 1000, getMeanSpeed(i)));
+        }
+        return sb.toString();
+    }
+
+    private int change(int newLevel, long nowMs) {
+        if (newLevel != level) {
+            level = newLevel;
+            lastChange = nowMs;
+        }
+        return level;
+    }
+
+    private static int clamp(int level) {
+        return Math.max(1, Math.min(MAX_LEVEL, level));
+    }
+}
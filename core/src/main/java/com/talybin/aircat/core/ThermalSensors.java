@@ -0,0 +1,157 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+// Reads SoC thermal zones and battery state from sysfs. Root is "/" on a
+// device, tests may use a directory with fake files laid out the same:
+//
+//  sys/class/thermal/thermal_zone<N>/{type,temp}
+//  sys/class/power_supply/battery/{temp,current_now,status,capacity}
+public class ThermalSensors {
+
+    // Thermal zones of these types are the CPU/GPU/SoC ones. Others
+    // (skin, battery, modem, pa) lag or are unrelated to hashcat load.
+    private static final String[] SOC_ZONE_TYPES = {
+            "cpu", "gpu", "soc", "tsens", "mtktscpu", "exynos", "apc", "cluster", "big", "little"
+    };
+
+    // Reasonable readings, others are disconnected sensors
+    private static final double MIN_TEMP = -30;
+    private static final double MAX_TEMP = 150;
+
+    public static class Sample {
+        // Hottest SoC zone (or any zone if none matched), NaN if unknown
+        public final double socTemp;
+
+        // NaN if unknown
+        public final double batteryTemp;
+
+        // Microamperes, positive while charging on most devices,
+        // 0 if unknown
+        public final long batteryCurrent;
+
+        public final boolean charging;
+
+        // Percent, -1 if unknown
+        public final int batteryCapacity;
+
+        public Sample(double socTemp, double batteryTemp, long batteryCurrent,
+                      boolean charging, int batteryCapacity)
+        {
+            this.socTemp = socTemp;
+            this.batteryTemp = batteryTemp;
+            this.batteryCurrent = batteryCurrent;
+            this.charging = charging;
+            this.batteryCapacity = batteryCapacity;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "soc %.1fc, battery %.1fc %d uA %s %d%%",
+                    socTemp, batteryTemp, batteryCurrent,
+                    charging ? "charging" : "discharging", batteryCapacity);
+        }
+    }
+
+    private final File thermalDir;
+    private final File batteryDir;
+
+    public ThermalSensors(File root) {
+        thermalDir = new File(root, "sys/class/thermal");
+        batteryDir = new File(root, "sys/class/power_supply/battery");
+    }
+
+    @NonNull
+    public Sample read() {
+        String status = readString(new File(batteryDir, "status"));
+        return new Sample(
+                readSocTemp(),
+                readTemp(new File(batteryDir, "temp"), true),
+                readLong(new File(batteryDir, "current_now"), 0),
+                "Charging".equalsIgnoreCase(status) || "Full".equalsIgnoreCase(status),
+                (int)readLong(new File(batteryDir, "capacity"), -1));
+    }
+
+    private double readSocTemp() {
+        String[] zones = thermalDir.list();
+        if (zones == null)
+            return Double.NaN;
+
+        double soc = Double.NaN;
+        double any = Double.NaN;
+        for (String zone : zones) {
+            if (!zone.startsWith("thermal_zone"))
+                continue;
+            File dir = new File(thermalDir, zone);
+            double temp = readTemp(new File(dir, "temp"), false);
+            if (Double.isNaN(temp))
+                continue;
+
+            any = Double.isNaN(any) ? temp : Math.max(any, temp);
+            if (isSocZone(readString(new File(dir, "type"))))
+                soc = Double.isNaN(soc) ? temp : Math.max(soc, temp);
+        }
+        return Double.isNaN(soc) ? any : soc;
+    }
+
+    private static boolean isSocZone(String type) {
+        if (type == null)
+            return false;
+        type = type.toLowerCase(Locale.ROOT);
+        for (String soc : SOC_ZONE_TYPES) {
+            if (type.contains(soc))
+                return true;
+        }
+        return false;
+    }
+
+    // Celsius, NaN if missing or unreasonable. Batteries report tenths of
+    // a degree. Zones report millidegrees, a few plain degrees.
+    private static double readTemp(File file, boolean battery) {
+        String value = readString(file);
+        if (value == null)
+            return Double.NaN;
+
+        double temp;
+        try {
+            temp = Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+        if (battery)
+            temp /= 10;
+        else if (Math.abs(temp) > MAX_TEMP)
+            temp /= 1000;
+        return temp >= MIN_TEMP && temp <= MAX_TEMP ? temp : Double.NaN;
+    }
+
+    static long readLong(File file, long defValue) {
+        String value = readString(file);
+        if (value == null)
+            return defValue;
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            return defValue;
+        }
+    }
+
+    // Trimmed content, null if not readable
+    static String readString(File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+}
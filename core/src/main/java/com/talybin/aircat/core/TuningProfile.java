@@ -0,0 +1,145 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+
+// Hashcat workload parameters found by the autotuner. Kernel values of 0
+// leave the choice to hashcat. Immutable.
+public class TuningProfile {
+
+    // Hashcat defaults, the starting point of a sweep
+    public static final TuningProfile DEFAULT = new TuningProfile(2, 0, 0, 0, false, 0);
+
+    // -w, 1 (low) to 4 (nightmare)
+    public final int workload;
+
+    // -n, -u and -T
+    public final int kernelAccel;
+    public final int kernelLoops;
+    public final int kernelThreads;
+
+    // -O, optimized kernels
+    public final boolean optimized;
+
+    // Measured hashes per second, 0 if not measured
+    public final long speed;
+
+    public TuningProfile(int workload, int kernelAccel, int kernelLoops, int kernelThreads,
+                         boolean optimized, long speed)
+    {
+        this.workload = workload;
+        this.kernelAccel = kernelAccel;
+        this.kernelLoops = kernelLoops;
+        this.kernelThreads = kernelThreads;
+        this.optimized = optimized;
+        this.speed = speed;
+    }
+
+    public TuningProfile withWorkload(int workload) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, 0);
+    }
+
+    public TuningProfile withKernelAccel(int kernelAccel) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, 0);
+    }
+
+    public TuningProfile withKernelLoops(int kernelLoops) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, 0);
+    }
+
+    public TuningProfile withKernelThreads(int kernelThreads) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, 0);
+    }
+
+    public TuningProfile withOptimized(boolean optimized) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, 0);
+    }
+
+    public TuningProfile withSpeed(long speed) {
+        return new TuningProfile(workload, kernelAccel, kernelLoops, kernelThreads, optimized, speed);
+    }
+
+    // Same parameters, speed is not compared
+    public boolean sameParams(TuningProfile other) {
+        return workload == other.workload &&
+                kernelAccel == other.kernelAccel &&
+                kernelLoops == other.kernelLoops &&
+                kernelThreads == other.kernelThreads &&
+                optimized == other.optimized;
+    }
+
+    // Hashcat arguments of the profile
+    public void addArgs(List<String> args) {
+        args.add("-w");
+        args.add(String.valueOf(workload));
+        if (kernelAccel > 0)
+            args.add("--kernel-accel=" + kernelAccel);
+        if (kernelLoops > 0)
+            args.add("--kernel-loops=" + kernelLoops);
+        if (kernelThreads > 0)
+            args.add("--kernel-threads=" + kernelThreads);
+        if (optimized)
+            args.add("--optimized-kernel-enable");
+    }
+
+    // For storing in preferences, see decode()
+    @NonNull
+    public String encode() {
+        return String.format(Locale.ROOT, "w=%d;n=%d;u=%d;T=%d;O=%d;speed=%d",
+                workload, kernelAccel, kernelLoops, kernelThreads, optimized ? 1 : 0, speed);
+    }
+
+    // Null if not a valid encoded profile
+    @Nullable
+    public static TuningProfile decode(@Nullable String encoded) {
+        if (encoded == null || encoded.isEmpty())
+            return null;
+
+        int workload = -1, accel = 0, loops = 0, threads = 0;
+        boolean optimized = false;
+        long speed = 0;
+        try {
+            for (String field : encoded.split(";")) {
+                int sep = field.indexOf('=');
+                if (sep < 0)
+                    return null;
+                String value = field.substring(sep + 1);
+                switch (field.substring(0, sep)) {
+                    case "w": workload = Integer.parseInt(value); break;
+                    case "n": accel = Integer.parseInt(value); break;
+                    case "u": loops = Integer.parseInt(value); break;
+                    case "T": threads = Integer.parseInt(value); break;
+                    case "O": optimized = "1".equals(value); break;
+                    case "speed": speed = Long.parseLong(value); break;
+                }
+            }
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+        if (workload < 1 || workload > 4)
+            return null;
+        return new TuningProfile(workload, accel, loops, threads, optimized, speed);
+    }
+
+    // Parameters without speed, e.g. to group runs by
+    @NonNull
+    public String getParams() {
+        return String.format(Locale.ROOT, "-w %d -n %s -u %s -T %s%s",
+                workload, auto(kernelAccel), auto(kernelLoops), auto(kernelThreads),
+                optimized ? " -O" : "");
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return getParams() + ", " + speed + " H/s";
+    }
+
+    private static String auto(int value) {
+        return value > 0 ? String.valueOf(value) : "auto";
+    }
+}
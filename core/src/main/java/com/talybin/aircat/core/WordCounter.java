@@ -0,0 +1,56 @@
+package com.talybin.aircat.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.LongConsumer;
+
+// Word list stage counting words passing thru. Reports the number
+// once the end of source is reached.
+public class WordCounter implements ReadableByteChannel {
+
+    private final ReadableByteChannel src;
+    private final LongConsumer onComplete;
+
+    private long nrWords = 0;
+    // Last byte seen, to count last line without newline
+    private byte last = '\n';
+    private boolean complete = false;
+
+    public WordCounter(ReadableByteChannel src, LongConsumer onComplete) {
+        this.src = src;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int cnt = src.read(dst);
+
+        if (cnt > 0) {
+            int end = start + cnt;
+            for (int i = start; i < end; ++i) {
+                if (dst.get(i) == '\n')
+                    ++nrWords;
+            }
+            last = dst.get(end - 1);
+        }
+        else if (cnt < 0 && !complete) {
+            complete = true;
+            if (last != '\n')
+                ++nrWords;
+            onComplete.accept(nrWords);
+        }
+        return cnt;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return src.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        src.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.talybin.aircat.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+// Word list stage passing only first words of the source, used to give
+// each sharded hashcat worker its own range of words
+public class WordLimiter implements ReadableByteChannel {
+
+    private final ReadableByteChannel src;
+
+    // Words left to pass
+    private long remaining;
+
+    public WordLimiter(ReadableByteChannel src, long nrWords) {
+        this.src = src;
+        this.remaining = nrWords;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (remaining == 0)
+            return -1;
+
+        int start = dst.position();
+        int cnt = src.read(dst);
+        if (cnt <= 0)
+            return cnt;
+
+        // Cut after the last passed word, the rest is dropped
+        int end = dst.position();
+        for (int pos = start; pos < end; ++pos) {
+            if (dst.get(pos) == '\n' && --remaining == 0) {
+                dst.position(pos + 1);
+                return pos + 1 - start;
+            }
+        }
+        return cnt;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return src.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        src.close();
+    }
+}
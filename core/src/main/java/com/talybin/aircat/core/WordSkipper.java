@@ -0,0 +1,58 @@
+package com.talybin.aircat.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+// Word list stage dropping first words of the source, used to resume
+// a job where it was stopped without feeding skipped words to hashcat
+public class WordSkipper implements ReadableByteChannel {
+
+    private final ReadableByteChannel src;
+
+    // Words left to skip
+    private long remaining;
+
+    public WordSkipper(ReadableByteChannel src, long nrWords) {
+        this.src = src;
+        this.remaining = nrWords;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        for (;;) {
+            int start = dst.position();
+            int cnt = src.read(dst);
+            if (cnt <= 0 || remaining == 0)
+                return cnt;
+
+            // Find end of last skipped word
+            int end = dst.position();
+            int pos = start;
+            for (; pos < end && remaining > 0; ++pos) {
+                if (dst.get(pos) == '\n')
+                    --remaining;
+            }
+
+            // Move what is left to start of read data
+            int left = end - pos;
+            ByteBuffer rest = dst.duplicate();
+            rest.limit(end).position(pos);
+            dst.position(start);
+            dst.put(rest);
+
+            if (left > 0)
+                return left;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return src.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        src.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.talybin.aircat.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class AutotunerTest {
+
+    private File root;
+    private File tempFile;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sysfs").toFile();
+        File zone = new File(root, "sys/class/thermal/thermal_zone0");
+        ThermalSensorsTest.write(new File(zone, "type"), "cpu-0-0-usr");
+        tempFile = new File(zone, "temp");
+        ThermalSensorsTest.write(tempFile, "35000");
+    }
+
+    @After
+    public void tearDown() {
+        ThermalSensorsTest.delete(root);
+    }
+
+    // Speed and heat grow with workload, workload 4 is fastest but
+    // heats the SoC past 45c
+    private long run(TuningProfile candidate, long maxRunMs) throws IOException {
+        ThermalSensorsTest.write(tempFile, Integer.toString(35000 + candidate.workload * 3000));
+        return 1000 * candidate.workload;
+    }
+
+    @Test
+    public void fastestWithoutSensors() throws InterruptedException {
+        TuningProfile best = new Autotuner(this::run, Autotuner.DEFAULT_MAX_RUN_MS, 0).tune();
+        assertNotNull(best);
+        assertEquals(4, best.workload);
+    }
+
+    @Test
+    public void rejectsTooHot() throws InterruptedException {
+        TuningProfile best = new Autotuner(this::run, Autotuner.DEFAULT_MAX_RUN_MS, 0)
+                .setThermal(new ThermalSensors(root), 45)
+                .tune();
+        assertNotNull(best);
+        assertEquals(3, best.workload);
+        assertEquals(3000, best.speed);
+    }
+
+    @Test
+    public void nothingCoolEnough() throws InterruptedException {
+        TuningProfile best = new Autotuner(this::run, Autotuner.DEFAULT_MAX_RUN_MS, 0)
+                .setThermal(new ThermalSensors(root), 30)
+                .tune();
+        assertNull(best);
+    }
+
+    // Missing sensors do not reject anything
+    @Test
+    public void unknownTemperature() throws InterruptedException {
+        TuningProfile best = new Autotuner(this::run, Autotuner.DEFAULT_MAX_RUN_MS, 0)
+                .setThermal(new ThermalSensors(new File(root, "none")), 45)
+                .tune();
+        assertNotNull(best);
+        assertEquals(4, best.workload);
+    }
+}
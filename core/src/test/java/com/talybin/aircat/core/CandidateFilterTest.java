@@ -0,0 +1,93 @@
+package com.talybin.aircat.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CandidateFilterTest {
+
+    @Test
+    public void defaultCapacity() {
+        long capacity = new BloomFilter(CandidateFilter.DEFAULT_DEDUP_SIZE, CandidateFilter.DEDUP_HASHES)
+                .getCapacity(CandidateFilter.MAX_FALSE_POSITIVE);
+        assertTrue(capacity > 8_800_000 && capacity < 9_000_000);
+    }
+
+    // Filled up to its capacity the filter drops about 0.1% of unseen words
+    @Test
+    public void falsePositiveRateAtCapacity() {
+        BloomFilter filter = new BloomFilter(256 * 1024, CandidateFilter.DEDUP_HASHES);
+        long capacity = filter.getCapacity(CandidateFilter.MAX_FALSE_POSITIVE);
+        for (long i = 0; i < capacity; ++i) {
+            byte[] word = ("seen" + i).getBytes(StandardCharsets.US_ASCII);
+            filter.put(word, 0, word.length);
+        }
+
+        int nrProbes = 1_000_000;
+        int falsePositives = 0;
+        for (int i = 0; i < nrProbes; ++i) {
+            byte[] word = ("unseen" + i).getBytes(StandardCharsets.US_ASCII);
+            if (filter.mightContain(word, 0, word.length))
+                ++falsePositives;
+        }
+        double rate = (double)falsePositives / nrProbes;
+        assertTrue("rate " + rate, rate < CandidateFilter.MAX_FALSE_POSITIVE * 1.2);
+    }
+
+    @Test
+    public void dropsShortLongAndDuplicates() throws IOException {
+        String out = filter("password\nshort\npassword\r\nsecret123\n" + repeat('x', 64) + "\nlastword1",
+                new BloomFilter(1024, CandidateFilter.DEDUP_HASHES));
+        assertEquals("password\nsecret123\nlastword1\n", out);
+    }
+
+    // Beyond capacity duplicates pass rather than unique words being lost
+    @Test
+    public void dedupStopsAtCapacity() throws IOException {
+        BloomFilter seen = new BloomFilter(64, CandidateFilter.DEDUP_HASHES);
+        long capacity = seen.getCapacity(CandidateFilter.MAX_FALSE_POSITIVE);
+
+        StringBuilder sb = new StringBuilder();
+        for (long i = 0; i < capacity; ++i)
+            sb.append("word").append(1000 + i).append('\n');
+        sb.append("password\npassword\n");
+
+        CandidateFilter filter = new CandidateFilter(open(sb.toString()), seen);
+        String out = readAll(filter);
+        assertTrue(filter.isDedupFull());
+        assertTrue(out.endsWith("password\npassword\n"));
+    }
+
+    private static String filter(String input, BloomFilter seen) throws IOException {
+        return readAll(new CandidateFilter(open(input), seen));
+    }
+
+    private static ReadableByteChannel open(String input) {
+        return Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String readAll(ReadableByteChannel channel) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (channel.read(buf) >= 0) {
+            os.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+        return new String(os.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; ++i)
+            sb.append(c);
+        return sb.toString();
+    }
+}
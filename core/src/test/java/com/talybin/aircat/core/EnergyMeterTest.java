@@ -0,0 +1,123 @@
+package com.talybin.aircat.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class EnergyMeterTest {
+
+    private static final long MINUTE = 60_000;
+
+    private File root;
+    private File batteryDir;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sysfs").toFile();
+        batteryDir = new File(root, "sys/class/power_supply/battery");
+        write("status", "Discharging");
+    }
+
+    @After
+    public void tearDown() {
+        ThermalSensorsTest.delete(root);
+    }
+
+    // One hour at 1 A and 4 V, sampled every minute
+    @Test
+    public void integratesCurrentAndVoltage() throws IOException {
+        write("current_now", "-1000000");
+        write("voltage_now", "4000000");
+
+        EnergyMeter meter = new EnergyMeter(root);
+        meter.start(0);
+        for (int i = 1; i <= 60; ++i)
+            meter.sample(i * MINUTE);
+
+        assertTrue(meter.isValid());
+        assertEquals(1000, meter.getMah(), 1e-6);
+        assertEquals(14400, meter.getJoules(), 1e-6);
+        assertEquals(10, EnergyMeter.hashesPerJoule(144_000, meter.getJoules()), 1e-9);
+    }
+
+    // Half an hour at 1 A then half an hour at 3 A, trapezoid over the step
+    @Test
+    public void accumulatesChangingCurrent() throws IOException {
+        write("voltage_now", "4000000");
+        write("current_now", "1000000");
+
+        EnergyMeter meter = new EnergyMeter(root);
+        meter.start(0);
+        meter.sample(30 * MINUTE);
+        write("current_now", "3000000");
+        meter.sample(31 * MINUTE);
+        meter.sample(60 * MINUTE);
+
+        double mah = 500 + 2000.0 / 60 + 3000 * 29 / 60.0;
+        assertEquals(mah, meter.getMah(), 1e-6);
+        assertEquals(mah * 3.6 * 4, meter.getJoules(), 1e-6);
+    }
+
+    // Counter counts down 500 mAh, voltage averages to 4 V
+    @Test
+    public void prefersChargeCounter() throws IOException {
+        write("current_now", "100000");
+        write("voltage_now", "4100000");
+        write("charge_counter", "3000000");
+
+        EnergyMeter meter = new EnergyMeter(root);
+        meter.start(0);
+        write("voltage_now", "3900000");
+        write("charge_counter", "2500000");
+        meter.sample(60 * MINUTE);
+
+        assertTrue(meter.isValid());
+        assertEquals(500, meter.getMah(), 1e-6);
+        assertEquals(7200, meter.getJoules(), 1e-6);
+    }
+
+    @Test
+    public void chargingMakesInvalid() throws IOException {
+        write("current_now", "-1000000");
+        write("voltage_now", "4000000");
+
+        EnergyMeter meter = new EnergyMeter(root);
+        meter.start(0);
+        meter.sample(MINUTE);
+        assertTrue(meter.isValid());
+
+        write("status", "Charging");
+        meter.sample(2 * MINUTE);
+        write("status", "Discharging");
+        meter.sample(3 * MINUTE);
+
+        assertFalse(meter.isValid());
+        assertEquals(0, meter.getMah(), 0);
+        assertEquals(0, meter.getJoules(), 0);
+    }
+
+    @Test
+    public void invalidWithoutSensors() {
+        EnergyMeter meter = new EnergyMeter(root);
+        meter.start(0);
+        meter.sample(MINUTE);
+        assertFalse(meter.isValid());
+        assertEquals(0, EnergyMeter.hashesPerJoule(1000, meter.getJoules()), 0);
+    }
+
+    @Test
+    public void perMillion() {
+        assertEquals(2.5, EnergyMeter.mahPerMillion(25, 10_000_000), 1e-9);
+        assertEquals(0, EnergyMeter.mahPerMillion(25, 0), 0);
+    }
+
+    private void write(String name, String value) throws IOException {
+        ThermalSensorsTest.write(new File(batteryDir, name), value);
+    }
+}
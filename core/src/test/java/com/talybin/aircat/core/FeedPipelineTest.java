@@ -0,0 +1,223 @@
+package com.talybin.aircat.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FeedPipelineTest {
+
+    private ExecutorService executor;
+    private final List<Exception> errors = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Source many times larger than the ring
+    @Test
+    public void copiesAll() throws InterruptedException {
+        byte[] data = new byte[1024 * 1024 + 17];
+        for (int i = 0; i < data.length; ++i)
+            data[i] = (byte)i;
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Channel src = new Channel(new ByteArrayReader(data));
+        Channel sink = new Channel(Channels.newChannel(os));
+
+        FeedPipeline pipeline = new FeedPipeline(executor, errors::add, 3, 4096);
+        pipeline.start(src, sink);
+        assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(src.closed.await(5, TimeUnit.SECONDS));
+
+        assertTrue(Arrays.equals(data, os.toByteArray()));
+        assertEquals(data.length, pipeline.getStats().bytes);
+        assertTrue(errors.isEmpty());
+    }
+
+    // Writer waits on an empty ring while the source blocks
+    @Test
+    public void closeWakesWriter() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Channel src = new Channel(new BlockingChannel(release));
+        Channel sink = new Channel(Channels.newChannel(new ByteArrayOutputStream()));
+
+        FeedPipeline pipeline = new FeedPipeline(executor, errors::add, 2, 1024);
+        pipeline.start(src, sink);
+        Thread.sleep(50);
+        assertFalse(sink.closed.await(0, TimeUnit.SECONDS));
+
+        pipeline.close();
+        assertTrue(sink.closed.await(1, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertTrue(src.closed.await(1, TimeUnit.SECONDS));
+        assertTrue(errors.isEmpty());
+    }
+
+    // Reader waits on a full ring while hashcat does not read
+    @Test
+    public void closeWakesReader() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Channel src = new Channel(new ByteArrayReader(new byte[64 * 1024]));
+        Channel sink = new Channel(new BlockingChannel(release));
+
+        FeedPipeline pipeline = new FeedPipeline(executor, errors::add, 2, 1024);
+        pipeline.start(src, sink);
+        Thread.sleep(50);
+        assertFalse(src.closed.await(0, TimeUnit.SECONDS));
+
+        pipeline.close();
+        assertTrue(src.closed.await(1, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertTrue(sink.closed.await(1, TimeUnit.SECONDS));
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void reportsSourceError() throws InterruptedException {
+        Channel src = new Channel(new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                throw new IOException("corrupt");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        Channel sink = new Channel(Channels.newChannel(new ByteArrayOutputStream()));
+
+        new FeedPipeline(executor, errors::add, 2, 1024).start(src, sink);
+        assertTrue(sink.closed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, errors.size());
+        assertEquals("corrupt", errors.get(0).getMessage());
+    }
+
+    // Counts down when closed
+    private static class Channel implements ReadableByteChannel, WritableByteChannel {
+        final CountDownLatch closed = new CountDownLatch(1);
+        final java.nio.channels.Channel channel;
+
+        Channel(java.nio.channels.Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return ((ReadableByteChannel)channel).read(dst);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return ((WritableByteChannel)channel).write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closed.getCount() > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            closed.countDown();
+        }
+    }
+
+    // Reads a few hundred bytes at a time, as decompressing streams do
+    private static class ByteArrayReader implements ReadableByteChannel {
+        final byte[] data;
+        int pos = 0;
+
+        ByteArrayReader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (pos == data.length)
+                return -1;
+            int cnt = Math.min(Math.min(dst.remaining(), 300), data.length - pos);
+            dst.put(data, pos, cnt);
+            pos += cnt;
+            return cnt;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Blocks every read and write until released, then fails as a
+    // closed pipe does
+    private static class BlockingChannel implements ReadableByteChannel, WritableByteChannel {
+        final CountDownLatch release;
+
+        BlockingChannel(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            await();
+            return -1;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            await();
+            throw new IOException("Broken pipe");
+        }
+
+        private void await() throws IOException {
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
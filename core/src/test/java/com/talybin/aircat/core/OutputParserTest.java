@@ -0,0 +1,90 @@
+package com.talybin.aircat.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OutputParserTest {
+
+    private static final String AP = "10:00:00:00:00:01";
+    private static final String CLIENT = "02:00:00:00:00:01";
+    private static final String PREFIX = "100000000001:020000000001:";
+
+    // Jobs cracked by the parser with their passwords, in order
+    private final List<TestHash> cracked = new ArrayList<>();
+    private final List<String> passwords = new ArrayList<>();
+    private final List<Long> progress = new ArrayList<>();
+
+    @Test
+    public void ssidPrefixOfAnother() throws IOException {
+        TestHash home = new TestHash("home", AP, CLIENT);
+        TestHash home2 = new TestHash("home2", AP, CLIENT);
+        parse(Arrays.asList(home, home2), PREFIX + "home2:secret123\n");
+        assertEquals(Arrays.asList(home2), cracked);
+        assertEquals(Arrays.asList("secret123"), passwords);
+    }
+
+    // Field ends at the first colon, the rest is the password
+    @Test
+    public void passwordWithColon() throws IOException {
+        TestHash home = new TestHash("home", AP, CLIENT);
+        TestHash homeX = new TestHash("home:x", AP, CLIENT);
+        parse(Arrays.asList(home, homeX), PREFIX + "home:x:pw123456\n");
+        assertEquals(Arrays.asList(home), cracked);
+        assertEquals(Arrays.asList("x:pw123456"), passwords);
+    }
+
+    @Test
+    public void hexSsid() throws IOException {
+        TestHash home = new TestHash("home", AP, CLIENT);
+        TestHash homeX = new TestHash("home:x", AP, CLIENT);
+        parse(Arrays.asList(home, homeX), PREFIX + "$HEX[686f6d653a78]:pw123456\n");
+        assertEquals(Arrays.asList(homeX), cracked);
+        assertEquals(Arrays.asList("pw123456"), passwords);
+    }
+
+    @Test
+    public void hiddenSsidAndHexPassword() throws IOException {
+        TestHash hidden = new TestHash(null, AP, CLIENT);
+        parse(Arrays.asList(hidden), PREFIX.toUpperCase() + ":$HEX[70613a7373776f7264]\r\n");
+        assertEquals(Arrays.asList(hidden), cracked);
+        assertEquals(Arrays.asList("pa:ssword"), passwords);
+    }
+
+    @Test
+    public void unknownSsid() throws IOException {
+        parse(Arrays.asList(new TestHash("home", AP, CLIENT)), PREFIX + "office:secret123\n");
+        assertTrue(cracked.isEmpty());
+    }
+
+    @Test
+    public void statusLine() throws IOException {
+        parse(Arrays.asList(new TestHash("home", AP, CLIENT)),
+                "STATUS 3 SPEED 1200 1000 800 1000 PROGRESS 500 1000 RECSALT 0 1\n" +
+                        "{\"status\": 5, \"progress\": [1000, 1000], \"devices\": []}\n");
+        assertEquals(Arrays.asList(500L, 1000L), progress);
+    }
+
+    private void parse(List<TestHash> jobs, String output) throws IOException {
+        new OutputParser<>(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)),
+                jobs, new OutputParser.Listener<TestHash>() {
+            @Override
+            public void onStatus(OutputParser.Status status) {
+                progress.add(status.progress);
+            }
+
+            @Override
+            public void onPassword(TestHash job, String password) {
+                cracked.add(job);
+                passwords.add(password);
+            }
+        }).run();
+    }
+}
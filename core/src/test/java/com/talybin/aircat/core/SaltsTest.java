@@ -0,0 +1,77 @@
+package com.talybin.aircat.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SaltsTest {
+
+    private static final String CLIENT = "02:00:00:00:00:01";
+
+    // Two access points of one network are a single salt
+    @Test
+    public void sharedSsidCountsOnce() {
+        List<TestHash> hashes = Arrays.asList(
+                new TestHash("home", "10:00:00:00:00:01", CLIENT),
+                new TestHash("home", "10:00:00:00:00:02", CLIENT),
+                new TestHash("office", "10:00:00:00:00:03", CLIENT));
+        Salts salts = new Salts(hashes);
+        assertEquals(2, Salts.count(hashes));
+        assertEquals(2, salts.size());
+        assertEquals(1000, salts.toWords(2000));
+        assertEquals(2000, salts.toProgress(1000));
+    }
+
+    @Test
+    public void hiddenSsidIsEmpty() {
+        List<TestHash> hashes = Arrays.asList(
+                new TestHash(null, "10:00:00:00:00:01", CLIENT),
+                new TestHash("", "10:00:00:00:00:02", CLIENT));
+        assertEquals(1, Salts.count(hashes));
+    }
+
+    @Test
+    public void emptyIsOneSalt() {
+        Salts salts = new Salts(Collections.<TestHash>emptyList());
+        assertEquals(0, Salts.count(Collections.<TestHash>emptyList()));
+        assertEquals(1, salts.size());
+        assertEquals(5, salts.toWords(5));
+    }
+
+    // Hashcat reports the same number of salts for a group with two jobs
+    // on one network, and progress of 1000 words as 2000
+    @Test
+    public void matchesHashcatProgress() throws IOException {
+        List<TestHash> hashes = Arrays.asList(
+                new TestHash("home", "10:00:00:00:00:01", CLIENT),
+                new TestHash("home", "10:00:00:00:00:02", CLIENT),
+                new TestHash("office", "10:00:00:00:00:03", CLIENT));
+        String line = "STATUS 3 SPEED 5000 1000 CURKU 1000 PROGRESS 2000 8000 " +
+                "RECHASH 0 3 RECSALT 0 2 REJECTED 0\n";
+
+        OutputParser.Status[] last = new OutputParser.Status[1];
+        new OutputParser<>(new ByteArrayInputStream(line.getBytes(StandardCharsets.US_ASCII)),
+                hashes, new OutputParser.Listener<TestHash>() {
+            @Override
+            public void onStatus(OutputParser.Status status) {
+                last[0] = status;
+            }
+
+            @Override
+            public void onPassword(TestHash job, String password) {
+            }
+        }).run();
+
+        Salts salts = new Salts(hashes);
+        assertEquals(last[0].totalSalts, salts.size());
+        assertEquals(1000, salts.toWords(last[0].progress));
+        assertEquals(4000, salts.toWords(last[0].progressTotal));
+    }
+}
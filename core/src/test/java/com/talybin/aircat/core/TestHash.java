@@ -0,0 +1,42 @@
+package com.talybin.aircat.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+// Hash with given ssid and mac addresses, pmkid is not checked by tests
+class TestHash implements PmkidHash {
+
+    private final String ssid;
+    private final String apMac;
+    private final String clientMac;
+
+    TestHash(@Nullable String ssid, String apMac, String clientMac) {
+        this.ssid = ssid;
+        this.apMac = apMac;
+        this.clientMac = clientMac;
+    }
+
+    @NonNull
+    @Override
+    public String getPmkId() {
+        return "00000000000000000000000000000000";
+    }
+
+    @Nullable
+    @Override
+    public String getSsid() {
+        return ssid;
+    }
+
+    @NonNull
+    @Override
+    public String getApMac() {
+        return apMac;
+    }
+
+    @NonNull
+    @Override
+    public String getClientMac() {
+        return clientMac;
+    }
+}
@@ -0,0 +1,148 @@
+package com.talybin.aircat.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+// Drives the controller from a fake sysfs, temperatures as the kernel
+// reports them
+public class ThermalControllerTest {
+
+    // Band 40 to 45, critical 53, battery 42, capacity 15
+    private static final ThermalController.Config CONFIG = ThermalController.Config.forTarget(45);
+    private static final long DWELL = CONFIG.dwellMs;
+
+    private File root;
+    private ThermalSensors sensors;
+    private ThermalController controller;
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sysfs").toFile();
+        sensors = new ThermalSensors(root);
+        controller = new ThermalController(CONFIG, 3, 0);
+        now = 0;
+        battery(30, "Discharging", 80);
+    }
+
+    @After
+    public void tearDown() {
+        ThermalSensorsTest.delete(root);
+    }
+
+    @Test
+    public void throttlesAfterDwell() throws IOException {
+        soc(47);
+        assertEquals(3, update(DWELL / 2));
+        assertEquals(2, update(DWELL / 2));
+        // Next step waits for the dwell time again
+        assertEquals(2, update(DWELL / 2));
+        assertEquals(1, update(DWELL / 2));
+        assertEquals(ThermalController.PAUSED, update(DWELL));
+        assertFalse(controller.isBatteryPause());
+    }
+
+    @Test
+    public void holdsInsideBand() throws IOException {
+        soc(42);
+        for (int i = 0; i < 10; ++i)
+            assertEquals(3, update(DWELL));
+    }
+
+    @Test
+    public void resumesAndStepsUpBelowLow() throws IOException {
+        soc(47);
+        update(DWELL);
+        update(DWELL);
+        update(DWELL);
+        assertEquals(ThermalController.PAUSED, controller.getLevel());
+
+        soc(38);
+        assertEquals(1, update(DWELL));
+        assertEquals(2, update(DWELL));
+        assertEquals(3, update(DWELL));
+        // Not above the maximum
+        assertEquals(3, update(DWELL));
+    }
+
+    @Test
+    public void pausesAtOnceWhenCritical() throws IOException {
+        soc(53);
+        assertEquals(ThermalController.PAUSED, update(1));
+
+        // Cooling below critical does not skip the dwell time
+        soc(44);
+        assertEquals(ThermalController.PAUSED, update(1));
+    }
+
+    @Test
+    public void batteryHotWithHysteresis() throws IOException {
+        soc(42);
+        battery(42.5, "Discharging", 80);
+        assertEquals(ThermalController.PAUSED, update(1));
+        assertTrue(controller.isBatteryPause());
+
+        // Below the limit, but not by the hysteresis
+        battery(41, "Discharging", 80);
+        assertEquals(ThermalController.PAUSED, update(DWELL));
+
+        battery(39.5, "Discharging", 80);
+        soc(38);
+        assertEquals(1, update(DWELL));
+        assertFalse(controller.isBatteryPause());
+    }
+
+    @Test
+    public void batteryLowWithHysteresis() throws IOException {
+        soc(42);
+        battery(30, "Discharging", 14);
+        assertEquals(ThermalController.PAUSED, update(1));
+        assertTrue(controller.isBatteryPause());
+
+        battery(30, "Discharging", 18);
+        assertEquals(ThermalController.PAUSED, update(DWELL));
+
+        // Charging lifts the limit
+        battery(30, "Charging", 18);
+        soc(38);
+        assertEquals(1, update(DWELL));
+    }
+
+    @Test
+    public void speedPerLevel() throws IOException {
+        controller.recordSpeed(1000);
+        controller.recordSpeed(3000);
+        soc(47);
+        update(DWELL);
+        controller.recordSpeed(1500);
+
+        assertEquals(2000, controller.getMeanSpeed(3));
+        assertEquals(1500, controller.getMeanSpeed(2));
+        assertEquals(0, controller.getMeanSpeed(1));
+    }
+
+    private int update(long elapsedMs) {
+        now += elapsedMs;
+        return controller.update(sensors.read(), now);
+    }
+
+    private void soc(double celsius) throws IOException {
+        File dir = new File(root, "sys/class/thermal/thermal_zone0");
+        ThermalSensorsTest.write(new File(dir, "type"), "cpu-1-0-usr");
+        ThermalSensorsTest.write(new File(dir, "temp"), Long.toString(Math.round(celsius * 1000)));
+    }
+
+    private void battery(double celsius, String status, int capacity) throws IOException {
+        File dir = new File(root, "sys/class/power_supply/battery");
+        ThermalSensorsTest.write(new File(dir, "temp"), Long.toString(Math.round(celsius * 10)));
+        ThermalSensorsTest.write(new File(dir, "status"), status);
+        ThermalSensorsTest.write(new File(dir, "capacity"), Integer.toString(capacity));
+    }
+}
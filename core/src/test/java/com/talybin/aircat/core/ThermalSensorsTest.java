@@ -0,0 +1,97 @@
+package com.talybin.aircat.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ThermalSensorsTest {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sysfs").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void readsHottestSocZone() throws IOException {
+        zone(0, "cpu0-silver-usr", "51200");
+        zone(1, "gpu-usr", "48000");
+        // Hotter, but not a SoC zone
+        zone(2, "pa-therm0", "60000");
+        battery("312", "-450000", "Discharging", "80");
+
+        ThermalSensors.Sample sample = new ThermalSensors(root).read();
+        assertEquals(51.2, sample.socTemp, 1e-9);
+        assertEquals(31.2, sample.batteryTemp, 1e-9);
+        assertEquals(-450000, sample.batteryCurrent);
+        assertFalse(sample.charging);
+        assertEquals(80, sample.batteryCapacity);
+    }
+
+    @Test
+    public void anyZoneWithoutSocZones() throws IOException {
+        zone(0, "skin-therm", "38000");
+        // Plain degrees
+        zone(1, "xo-therm", "41");
+        // Disconnected sensor
+        zone(2, "quiet-therm", "-273000");
+
+        assertEquals(41, new ThermalSensors(root).read().socTemp, 1e-9);
+    }
+
+    @Test
+    public void unknownWhenMissing() throws IOException {
+        battery(null, null, "Charging", null);
+
+        ThermalSensors.Sample sample = new ThermalSensors(root).read();
+        assertTrue(Double.isNaN(sample.socTemp));
+        assertTrue(Double.isNaN(sample.batteryTemp));
+        assertEquals(0, sample.batteryCurrent);
+        assertTrue(sample.charging);
+        assertEquals(-1, sample.batteryCapacity);
+    }
+
+    private void zone(int n, String type, String temp) throws IOException {
+        File dir = new File(root, "sys/class/thermal/thermal_zone" + n);
+        write(new File(dir, "type"), type);
+        write(new File(dir, "temp"), temp);
+    }
+
+    private void battery(String temp, String current, String status, String capacity) throws IOException {
+        File dir = new File(root, "sys/class/power_supply/battery");
+        write(new File(dir, "temp"), temp);
+        write(new File(dir, "current_now"), current);
+        write(new File(dir, "status"), status);
+        write(new File(dir, "capacity"), capacity);
+    }
+
+    // Sysfs values end with a newline
+    static void write(File file, String value) throws IOException {
+        if (value == null)
+            return;
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), (value + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+}
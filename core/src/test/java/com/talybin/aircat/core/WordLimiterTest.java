@@ -0,0 +1,39 @@
+package com.talybin.aircat.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.talybin.aircat.core.WordSkipperTest.open;
+import static com.talybin.aircat.core.WordSkipperTest.readAll;
+import static org.junit.Assert.*;
+
+public class WordLimiterTest {
+
+    private static final String WORDS = "alpha\nbravo\ncharlie\ndelta\necho\nfoxtrot\n";
+
+    @Test
+    public void passesFirstWords() throws IOException {
+        assertEquals("alpha\nbravo\ncharlie\n",
+                readAll(new WordLimiter(open(WORDS), 3), ByteBuffer.allocate(4096)));
+    }
+
+    @Test
+    public void smallBuffers() throws IOException {
+        assertEquals("alpha\nbravo\ncharlie\ndelta\n",
+                readAll(new WordLimiter(open(WORDS), 4), ByteBuffer.allocateDirect(5)));
+    }
+
+    @Test
+    public void limitBeyondEnd() throws IOException {
+        assertEquals(WORDS, readAll(new WordLimiter(open(WORDS), 100), ByteBuffer.allocate(16)));
+    }
+
+    // Shard of a resumed list, as the feed of a worker is built
+    @Test
+    public void rangeAfterSkip() throws IOException {
+        assertEquals("charlie\ndelta\n", readAll(
+                new WordLimiter(new WordSkipper(open(WORDS), 2), 2), ByteBuffer.allocateDirect(6)));
+    }
+}
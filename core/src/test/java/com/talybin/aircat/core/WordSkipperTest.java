@@ -0,0 +1,68 @@
+package com.talybin.aircat.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class WordSkipperTest {
+
+    private static final String WORDS = "alpha\nbravo\ncharlie\ndelta\necho\nfoxtrot\n";
+
+    @Test
+    public void skipsFirstWords() throws IOException {
+        assertEquals("charlie\ndelta\necho\nfoxtrot\n",
+                readAll(new WordSkipper(open(WORDS), 2), ByteBuffer.allocate(4096)));
+    }
+
+    // Skipped words end in the middle of a direct buffer, the rest is
+    // moved to the start of read data
+    @Test
+    public void directBufferAfterData() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        buffer.put("kept\n".getBytes(StandardCharsets.US_ASCII));
+        ReadableByteChannel skipper = new WordSkipper(open(WORDS), 3);
+        assertEquals(19, skipper.read(buffer));
+
+        buffer.flip();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        assertEquals("kept\ndelta\necho\nfoxtrot\n", new String(data, StandardCharsets.US_ASCII));
+    }
+
+    // Skipped words span several reads
+    @Test
+    public void smallBuffers() throws IOException {
+        assertEquals("echo\nfoxtrot\n", readAll(new WordSkipper(open(WORDS), 4), ByteBuffer.allocateDirect(7)));
+    }
+
+    @Test
+    public void skipAll() throws IOException {
+        assertEquals("", readAll(new WordSkipper(open(WORDS), 10), ByteBuffer.allocate(16)));
+        assertEquals(WORDS, readAll(new WordSkipper(open(WORDS), 0), ByteBuffer.allocate(16)));
+    }
+
+    static ReadableByteChannel open(String input) {
+        return Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static String readAll(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] chunk = new byte[buffer.capacity()];
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            int cnt = buffer.remaining();
+            buffer.get(chunk, 0, cnt);
+            os.write(chunk, 0, cnt);
+            buffer.clear();
+        }
+        return new String(os.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,55 @@
+package com.talybin.aircat.harness;
+
+import com.talybin.aircat.core.TaskRunner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Single thread runner standing in for Android UI thread
+class ExecutorTaskRunner implements TaskRunner {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    // Pending delayed posts, to be removed by task
+    private final Map<Runnable, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+
+    @Override
+    public void post(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+        pending.put(task, executor.schedule(() -> {
+            pending.remove(task);
+            task.run();
+        }, delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void remove(Runnable task) {
+        ScheduledFuture<?> future = pending.remove(task);
+        if (future != null)
+            future.cancel(false);
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // Run task on runner thread and wait for it
+    void runAndWait(Runnable task) throws Exception {
+        executor.submit(task).get();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,249 @@
+package com.talybin.aircat.harness;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stand-in for hashcat -m 16800 --machine-readable. Accepts the same
+// command line as the real one, reads words from the dictionary file or
+// stdin and prints status and crack lines. Behaviour is scripted by
+// fake-hashcat.properties in working directory:
+//
+//  rate          Bytes per second to consume, 0 for unlimited
+//  speed         Reported speed per device, H/s
+//  devices       Number of devices in SPEED lines
+//  statusMs      Status interval, --status-timer if not set
+//  crackAfter    Words consumed before each hash is cracked,
+//                comma separated in hash file order (-1 never)
+//  stallAfter    Stop reading for stallMs after this many bytes
+//  stallMs
+//  stderrLines   Lines written to stderr on start
+//  exitAfter     Exit with exitCode after this many bytes
+//  exitCode
+class FakeHashcat {
+
+    static final String CONFIG_FILE = "fake-hashcat.properties";
+
+    private static class Hash {
+        final String apMac;
+        final String clientMac;
+        final String ssid;
+        final long crackAfter;
+        boolean cracked = false;
+
+        Hash(String line, long crackAfter) {
+            String[] parts = line.split("\\*");
+            apMac = parts[1];
+            clientMac = parts[2];
+            ssid = new String(fromHex(parts.length > 3 ? parts[3] : ""), StandardCharsets.UTF_8);
+            this.crackAfter = crackAfter;
+        }
+    }
+
+    private final Properties config = new Properties();
+    private final List<Hash> hashes = new ArrayList<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong words = new AtomicLong();
+    private final AtomicBoolean eof = new AtomicBoolean(false);
+
+    private final PrintStream out = new PrintStream(System.out, false);
+
+    private long skip = 0;
+    private String dictionary = null;
+    private long statusMs = 10_000;
+    private long totalWords = 0;
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new FakeHashcat().run(args));
+    }
+
+    private int run(String[] args) throws Exception {
+        File configFile = new File(CONFIG_FILE);
+        if (configFile.isFile()) {
+            try (InputStream is = new FileInputStream(configFile)) {
+                config.load(is);
+            }
+        }
+
+        String hashFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--status-timer="))
+                statusMs = Long.parseLong(arg.substring(15)) * 1000;
+            else if (arg.startsWith("--skip="))
+                skip = Long.parseLong(arg.substring(7));
+            else if (!arg.startsWith("-") && !arg.matches("\\d+")) {
+                if (hashFile == null)
+                    hashFile = arg;
+                else
+                    dictionary = arg;
+            }
+        }
+        statusMs = getLong("statusMs", statusMs);
+
+        String[] crackAfter = config.getProperty("crackAfter", "").split(",");
+        int idx = 0;
+        for (String line : Files.readAllLines(new File(hashFile).toPath())) {
+            if (!line.isEmpty()) {
+                long after = idx < crackAfter.length && !crackAfter[idx].trim().isEmpty() ?
+                        Long.parseLong(crackAfter[idx].trim()) : -1;
+                hashes.add(new Hash(line, after));
+                ++idx;
+            }
+        }
+
+        for (long i = getLong("stderrLines", 0); i > 0; --i)
+            System.err.println("clWaitForEvents(): CL_OUT_OF_RESOURCES, fake warning line " + i);
+
+        if (dictionary != null)
+            totalWords = countLines(new File(dictionary));
+
+        Thread reader = new Thread(this::read);
+        reader.setDaemon(true);
+        reader.start();
+
+        long exitAfter = getLong("exitAfter", -1);
+        long lastStatus = System.currentTimeMillis();
+
+        for (;;) {
+            Thread.sleep(10);
+
+            int cracked = crack();
+            if (cracked == hashes.size()) {
+                status(6);
+                return 0;
+            }
+
+            if (exitAfter >= 0 && bytes.get() >= exitAfter) {
+                System.err.println("fake hashcat: scripted exit");
+                out.flush();
+                return (int)getLong("exitCode", 255);
+            }
+
+            if (eof.get()) {
+                status(5);
+                return 1;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastStatus >= statusMs) {
+                lastStatus = now;
+                status(3);
+            }
+        }
+    }
+
+    // Print crack lines of hashes reached, return number of cracked
+    private int crack() {
+        int cnt = 0;
+        for (Hash hash : hashes) {
+            if (!hash.cracked && hash.crackAfter >= 0 && words.get() >= hash.crackAfter) {
+                hash.cracked = true;
+                out.printf("%s:%s:%s:password%d%n", hash.apMac, hash.clientMac, hash.ssid, cnt);
+                out.flush();
+            }
+            if (hash.cracked)
+                ++cnt;
+        }
+        return cnt;
+    }
+
+    private void status(int state) {
+        int devices = (int)getLong("devices", 1);
+        long speed = getLong("speed", 10_000);
+        long salts = hashes.stream().filter(h -> !h.cracked).count();
+        long progress = words.get() * hashes.size();
+
+        StringBuilder sb = new StringBuilder("STATUS\t").append(state).append("\tSPEED");
+        for (int i = 0; i < devices; ++i)
+            sb.append('\t').append(speed).append("\t1000.00");
+        sb.append("\tEXEC_RUNTIME");
+        for (int i = 0; i < devices; ++i)
+            sb.append("\t12.50");
+        sb.append(String.format(Locale.ROOT,
+                "\tCURKU\t%d\tPROGRESS\t%d\t%d\tRECHASH\t%d\t%d\tRECSALT\t%d\t%d\tREJECTED\t0\tUTIL",
+                words.get(), progress, totalWords * hashes.size(),
+                hashes.size() - salts, hashes.size(), hashes.size() - salts, hashes.size()));
+        for (int i = 0; i < devices; ++i)
+            sb.append("\t100");
+        out.println(sb);
+        out.flush();
+    }
+
+    private void read() {
+        long rate = getLong("rate", 0);
+        long stallAfter = getLong("stallAfter", -1);
+        long stallMs = getLong("stallMs", 0);
+        long toSkip = dictionary != null ? skip : 0;
+
+        byte[] buffer = new byte[64 * 1024];
+        long start = System.nanoTime();
+
+        try (InputStream is = dictionary != null ? new FileInputStream(dictionary) : System.in) {
+            for (int cnt; (cnt = is.read(buffer)) >= 0; ) {
+                long lines = 0;
+                for (int i = 0; i < cnt; ++i) {
+                    if (buffer[i] == '\n') {
+                        if (toSkip > 0)
+                            --toSkip;
+                        else
+                            ++lines;
+                    }
+                }
+                long total = bytes.addAndGet(cnt);
+                words.addAndGet(lines);
+
+                if (stallAfter >= 0 && total >= stallAfter) {
+                    stallAfter = -1;
+                    Thread.sleep(stallMs);
+                    start += stallMs * 1_000_000;
+                }
+
+                // Sleep until consumed bytes match the rate
+                if (rate > 0) {
+                    long due = start + total * 1_000_000_000L / rate;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0)
+                        Thread.sleep(wait / 1_000_000, (int)(wait % 1_000_000));
+                }
+            }
+        }
+        catch (IOException | InterruptedException ignored) {
+        }
+        eof.set(true);
+    }
+
+    private long getLong(String key, long defValue) {
+        String value = config.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : defValue;
+    }
+
+    private static long countLines(File file) throws IOException {
+        long lines = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = new FileInputStream(file)) {
+            for (int cnt; (cnt = is.read(buffer)) >= 0; ) {
+                for (int i = 0; i < cnt; ++i)
+                    if (buffer[i] == '\n') ++lines;
+            }
+        }
+        return lines;
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] ret = new byte[hex.length() / 2];
+        for (int i = 0; i < ret.length; ++i)
+            ret[i] = (byte)Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        return ret;
+    }
+}
@@ -0,0 +1,406 @@
+package com.talybin.aircat.harness;
+
+import com.talybin.aircat.core.CandidateFilter;
+import com.talybin.aircat.core.Compression;
+import com.talybin.aircat.core.FeedPipeline;
+import com.talybin.aircat.core.FileByteSource;
+import com.talybin.aircat.core.HashFormat;
+import com.talybin.aircat.core.HashcatLauncher;
+import com.talybin.aircat.core.LogRing;
+import com.talybin.aircat.core.OutputParser;
+import com.talybin.aircat.core.PmkidHash;
+import com.talybin.aircat.core.Progress;
+import com.talybin.aircat.core.ProgressDispatcher;
+import com.talybin.aircat.core.Settings;
+import com.talybin.aircat.core.StreamDrain;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// Runs the word list feed, hashcat process and output parsing the same
+// way the app does, with FakeHashcat in place of hashcat, and reports:
+//
+//  feed MB/s    Bytes written to hashcat stdin per second of run time
+//  first ms     Time from launch to first status line
+//  stop ms      Time from stop request to end of output (stop scenarios)
+//  ui           Progress updates published / delivered to UI consumers
+//               (sum of job list and notification consumers)
+//  stalls       Feed pipeline stalls: reader waited for hashcat /
+//               writer waited for reader
+public class Harness {
+
+    // Same intervals as in the app
+    private static final long UI_PROGRESS_INTERVAL_MS = 500;
+    private static final long NOTIFICATION_PROGRESS_INTERVAL_MS = 2000;
+
+    private static final int MB = 1024 * 1024;
+
+    private static class Scenario {
+        final String name;
+        final Properties fake = new Properties();
+
+        int wordListMb = 64;
+        boolean gzip = false;
+        boolean filter = false;
+        int nrJobs = 4;
+
+        // Stop hashcat this long after launch, -1 to let it finish
+        long stopAfterMs = -1;
+        long timeoutMs = 60_000;
+
+        Scenario(String name) {
+            this.name = name;
+            fake.setProperty("statusMs", "250");
+        }
+
+        Scenario set(String key, Object value) {
+            fake.setProperty(key, String.valueOf(value));
+            return this;
+        }
+    }
+
+    private static class Result {
+        double feedMbps;
+        long firstProgressMs = -1;
+        long stopLatencyMs = -1;
+        long published;
+        long delivered;
+        int cracked;
+        int exitCode;
+        long stderrLines;
+        boolean timedOut;
+        FeedPipeline.Stats stats;
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private static class Hash implements PmkidHash {
+        final String pmkId;
+        final String ssid;
+        final String apMac;
+        final String clientMac;
+
+        Hash(Random random, int idx) {
+            pmkId = hex(random, 16);
+            ssid = "network-" + idx;
+            apMac = mac(random);
+            clientMac = mac(random);
+        }
+
+        @Override
+        public String getPmkId() {
+            return pmkId;
+        }
+
+        @Override
+        public String getSsid() {
+            return ssid;
+        }
+
+        @Override
+        public String getApMac() {
+            return apMac;
+        }
+
+        @Override
+        public String getClientMac() {
+            return clientMac;
+        }
+    }
+
+    private static final Settings settings = new Settings() {
+        @Override
+        public String getString(String key, String defValue) {
+            return key.equals("hashcat_refresh_interval") ? "1" : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return defValue;
+        }
+    };
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    // Generated word lists by size and format
+    private final Map<String, File> wordLists = new HashMap<>();
+    private final File tempDir;
+
+    private Harness() throws IOException {
+        tempDir = Files.createTempDirectory("aircat-harness-").toFile();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        for (Scenario s : scenarios())
+            scenarios.put(s.name, s);
+
+        List<String> names = args.length > 0 ? Arrays.asList(args) : new ArrayList<>(scenarios.keySet());
+
+        Harness harness = new Harness();
+        try {
+            System.out.printf("%-14s %9s %9s %8s %11s %7s %5s %8s %17s %s%n",
+                    "scenario", "feed MB/s", "first ms", "stop ms", "ui pub/dlv",
+                    "cracked", "exit", "stderr", "stalls prod/cons", "notes");
+            for (String name : names) {
+                Scenario scenario = scenarios.get(name);
+                if (scenario == null) {
+                    System.out.println(name + ": unknown scenario");
+                    continue;
+                }
+                harness.print(scenario, harness.run(scenario));
+            }
+        }
+        finally {
+            harness.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private static List<Scenario> scenarios() {
+        List<Scenario> ret = new ArrayList<>();
+
+        ret.add(new Scenario("baseline"));
+
+        Scenario filtered = new Scenario("filtered");
+        filtered.filter = true;
+        ret.add(filtered);
+
+        Scenario gzip = new Scenario("gzip");
+        gzip.gzip = true;
+        ret.add(gzip);
+
+        Scenario throttled = new Scenario("throttled").set("rate", 8 * MB);
+        throttled.wordListMb = 32;
+        ret.add(throttled);
+
+        ret.add(new Scenario("crack").set("crackAfter", "100000,200000,400000,800000"));
+
+        ret.add(new Scenario("stall").set("stallAfter", 8 * MB).set("stallMs", 2000));
+
+        // Stderr is drained while running, a flood must not block hashcat
+        Scenario flood = new Scenario("stderr-flood").set("stderrLines", 100_000);
+        flood.timeoutMs = 15_000;
+        ret.add(flood);
+
+        ret.add(new Scenario("early-exit").set("exitAfter", 4 * MB).set("exitCode", 255));
+
+        Scenario stop = new Scenario("stop").set("rate", 4 * MB);
+        stop.wordListMb = 32;
+        stop.stopAfterMs = 2000;
+        ret.add(stop);
+
+        return ret;
+    }
+
+    private Result run(Scenario scenario) throws Exception {
+        Result result = new Result();
+
+        File workingDir = new File(tempDir, scenario.name);
+        if (!workingDir.mkdirs() && !workingDir.isDirectory())
+            throw new IOException("cannot create " + workingDir);
+        writeFakeExecutable(workingDir);
+        try (OutputStream os = new FileOutputStream(new File(workingDir, FakeHashcat.CONFIG_FILE))) {
+            scenario.fake.store(os, scenario.name);
+        }
+
+        File wordList = getWordList(scenario.wordListMb, scenario.gzip);
+
+        Random random = new Random(scenario.nrJobs);
+        List<Hash> hashes = new ArrayList<>();
+        for (int i = 0; i < scenario.nrJobs; ++i)
+            hashes.add(new Hash(random, i));
+        File hashFile = HashFormat.createHashFile(hashes);
+
+        ExecutorTaskRunner ui = new ExecutorTaskRunner();
+        ProgressDispatcher<Hash> dispatcher = new ProgressDispatcher<Hash>(ui)
+                .addConsumer((jobs, progress) -> {}, UI_PROGRESS_INTERVAL_MS)
+                .addConsumer((jobs, progress) -> {}, NOTIFICATION_PROGRESS_INTERVAL_MS);
+
+        long start = System.nanoTime();
+        Process process = new HashcatLauncher(workingDir, settings).start(hashFile);
+
+        // As the app does
+        LogRing log = new LogRing(LogRing.DEFAULT_CAPACITY);
+        StreamDrain stderr = new StreamDrain(process.getErrorStream(), log, LogRing.Source.STDERR, null);
+        Future<?> stderrDone = pool.submit(stderr);
+
+        FeedPipeline feedPipeline = new FeedPipeline(pool, result.errors::add);
+        ReadableByteChannel src = Compression.openChannel(new FileByteSource(wordList));
+        if (scenario.filter)
+            src = new CandidateFilter(src);
+        feedPipeline.start(src, Channels.newChannel(process.getOutputStream()));
+
+        AtomicLong stopRequested = new AtomicLong(0);
+        if (scenario.stopAfterMs >= 0) {
+            timer.schedule(() -> {
+                stopRequested.set(System.nanoTime());
+                process.destroy();
+            }, scenario.stopAfterMs, TimeUnit.MILLISECONDS);
+        }
+        timer.schedule(() -> {
+            if (process.isAlive()) {
+                result.timedOut = true;
+                process.destroyForcibly();
+            }
+        }, scenario.timeoutMs, TimeUnit.MILLISECONDS);
+
+        int nrJobs = hashes.size();
+        OutputParser<Hash> parser = new OutputParser<>(process.getInputStream(), hashes, new OutputParser.Listener<Hash>() {
+            @Override
+            public void onStatus(OutputParser.Status status) {
+                if (result.firstProgressMs < 0)
+                    result.firstProgressMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                dispatcher.publish(hashes, new Progress(status.state, (int)status.speed,
+                        status.progress, status.progressTotal, status.snapshot()));
+            }
+
+            @Override
+            public void onPassword(Hash job, String password) {
+                ++result.cracked;
+            }
+        });
+        parser.setLog(log);
+        parser.run();
+
+        long end = System.nanoTime();
+        if (stopRequested.get() > 0)
+            result.stopLatencyMs = TimeUnit.NANOSECONDS.toMillis(end - stopRequested.get());
+
+        process.waitFor();
+        result.exitCode = process.exitValue();
+
+        stderrDone.get();
+        result.stderrLines = stderr.getNrLines();
+
+        feedPipeline.close();
+        result.stats = feedPipeline.getStats();
+        result.feedMbps = result.stats.bytes / (double)MB /
+                ((end - start) / 1e9);
+
+        // Let pending deliveries run
+        Thread.sleep(NOTIFICATION_PROGRESS_INTERVAL_MS);
+        ui.runAndWait(() -> {
+            result.published = dispatcher.getNrPublished();
+            result.delivered = dispatcher.getNrDelivered();
+        });
+        ui.shutdown();
+
+        hashFile.delete();
+        return result;
+    }
+
+    private void print(Scenario scenario, Result r) {
+        List<String> notes = new ArrayList<>();
+        if (r.timedOut)
+            notes.add("timed out");
+        for (Exception e : r.errors)
+            notes.add("feed error: " + e.getMessage());
+
+        System.out.printf(Locale.ROOT, "%-14s %9.1f %9d %8s %11s %7d %5d %8d %17s %s%n",
+                scenario.name, r.feedMbps, r.firstProgressMs,
+                r.stopLatencyMs >= 0 ? String.valueOf(r.stopLatencyMs) : "-",
+                r.published + "/" + r.delivered,
+                r.cracked, r.exitCode, r.stderrLines,
+                r.stats.producerStalls + "/" + r.stats.consumerStalls,
+                String.join(", ", notes));
+    }
+
+    // Shell wrapper starting FakeHashcat with current class path,
+    // launched as ./hashcat like the real one
+    private static void writeFakeExecutable(File workingDir) throws IOException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        String script = "#!/bin/sh\n" +
+                "exec '" + java + "' -cp '" + System.getProperty("java.class.path") + "' " +
+                FakeHashcat.class.getName() + " \"$@\"\n";
+
+        File file = new File(workingDir, "hashcat");
+        Files.write(file.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        if (!file.setExecutable(true))
+            throw new IOException("cannot make " + file + " executable");
+    }
+
+    private File getWordList(int sizeMb, boolean gzip) throws IOException {
+        String key = sizeMb + (gzip ? ".gz" : ".txt");
+        File file = wordLists.get(key);
+        if (file != null)
+            return file;
+
+        file = new File(tempDir, "wordlist-" + key);
+        Random random = new Random(sizeMb);
+        long size = (long)sizeMb * MB;
+
+        try (OutputStream os = gzip ?
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))) :
+                new BufferedOutputStream(new FileOutputStream(file)))
+        {
+            byte[] word = new byte[17];
+            for (long written = 0; written < size; ) {
+                int length = 8 + random.nextInt(9);
+                for (int i = 0; i < length; ++i)
+                    word[i] = (byte)('a' + random.nextInt(26));
+                word[length] = '\n';
+                os.write(word, 0, length + 1);
+                written += length + 1;
+            }
+        }
+        wordLists.put(key, file);
+        return file;
+    }
+
+    private void shutdown() {
+        pool.shutdownNow();
+        timer.shutdownNow();
+        delete(tempDir);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files)
+                delete(child);
+        }
+        file.delete();
+    }
+
+    private static String mac(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 6; ++i) {
+            if (i > 0)
+                sb.append(':');
+            sb.append(hex(random, 1));
+        }
+        return sb.toString();
+    }
+
+    private static String hex(Random random, int nrBytes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nrBytes; ++i)
+            sb.append(String.format("%02x", random.nextInt(256)));
+        return sb.toString();
+    }
+}